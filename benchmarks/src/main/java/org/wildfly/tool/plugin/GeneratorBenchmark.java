@@ -0,0 +1,98 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.tool.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.apache.maven.tools.plugin.DefaultPluginToolsRequest;
+import org.apache.maven.tools.plugin.PluginToolsRequest;
+import org.codehaus.plexus.util.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * End to end benchmark of {@link PluginAdocGenerator#execute(File, PluginToolsRequest)}.
+ *
+ * @author Emmanuel Hugonnet (c) 2018 Red Hat, inc.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeneratorBenchmark {
+
+    /**
+     * Number of goals of the plugin.
+     */
+    private static final int GOALS = 10;
+
+    /**
+     * Number of parameters of each goal, run with the GC profiler of {@link BenchmarkRunner} to check that the
+     * allocations per parameter stay the same as the goals grow.
+     */
+    @Param({"10", "100", "1000", "10000"})
+    public int parameters;
+
+    @Param({"false", "true"})
+    public boolean clean;
+
+    private PluginToolsRequest request;
+
+    private Path destinationDirectory;
+
+    @Setup(Level.Trial)
+    public void createPlugin() throws Exception {
+        request = new DefaultPluginToolsRequest(null, SyntheticDescriptors.createPlugin(GOALS, parameters));
+        destinationDirectory = Files.createTempDirectory("adoc-benchmark");
+    }
+
+    /**
+     * Without cleaning the documents are rendered but not written again as their content doesn't change.
+     */
+    @Setup(Level.Invocation)
+    public void clean() throws IOException {
+        if (clean) {
+            FileUtils.cleanDirectory(destinationDirectory.toFile());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() throws IOException {
+        FileUtils.deleteDirectory(destinationDirectory.toFile());
+    }
+
+    @Benchmark
+    public void execute() throws Exception {
+        new PluginAdocGenerator().execute(destinationDirectory.toFile(), request);
+    }
+}
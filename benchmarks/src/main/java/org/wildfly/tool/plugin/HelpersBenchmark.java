@@ -0,0 +1,84 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.tool.plugin;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import org.apache.maven.plugin.descriptor.MojoDescriptor;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the helpers called for every parameter.
+ *
+ * @author Emmanuel Hugonnet (c) 2018 Red Hat, inc.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HelpersBenchmark {
+
+    private static final String DEFAULT_VALUE = "${project.build.directory}/<server & \"config\">";
+
+    @Param({"10", "100", "1000"})
+    public int parameters;
+
+    private LocalizedMessages messages;
+
+    private MojoDescriptor mojoDescriptor;
+
+    @Setup
+    public void createMojo() throws Exception {
+        messages = new LocalizedMessages(Locale.ENGLISH, getClass().getClassLoader());
+        PluginDescriptor pluginDescriptor = SyntheticDescriptors.createPlugin(0, 0);
+        mojoDescriptor = SyntheticDescriptors.createMojo(pluginDescriptor, "goal", parameters);
+    }
+
+    @Benchmark
+    public String format() {
+        return messages.format("pluginasciidoc.mojodescriptor.parameter.defaultValue", DEFAULT_VALUE);
+    }
+
+    @Benchmark
+    public String escapeXml() {
+        return Escaper.toXml(DEFAULT_VALUE);
+    }
+
+    @Benchmark
+    public String htmlToAsciidoc() {
+        // a new escaper, its memoization would otherwise hide the conversion
+        return new Escaper().htmlToAsciidoc(SyntheticDescriptors.LONG_HTML_DESCRIPTION);
+    }
+
+    @Benchmark
+    public MojoModel filterParameters() {
+        return new MojoModel(mojoDescriptor);
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.tool.plugin;
+
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+
+/**
+ * Generates the AsciiDoc documentation of the goals from the <code>plugin.xml</code> descriptor generated by the
+ * <code>maven-plugin-plugin</code>, without resolving the dependencies of the project nor extracting the descriptors
+ * from its sources and classes. The <code>descriptor</code> goal of the <code>maven-plugin-plugin</code> must be
+ * executed first, in an earlier phase or before this goal in the same phase. As the documents are generated after
+ * the sources have been compiled, they are meant for the site and the output directory isn't added to the compile
+ * source roots of the project.
+ *
+ * @author Emmanuel Hugonnet (c) 2018 Red Hat, inc.
+ */
+@Mojo(name = "asciidoc-from-descriptor", defaultPhase = LifecyclePhase.PROCESS_CLASSES, threadSafe = true,
+        requiresDependencyResolution = ResolutionScope.NONE)
+public class AdocDescriptorMojo extends AdocGeneratorMojo {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean isGeneratedDescriptorRequired() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean isCompileSourceRootAdded() {
+        return false;
+    }
+}
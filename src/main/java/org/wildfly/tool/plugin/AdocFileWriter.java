@@ -0,0 +1,327 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.tool.plugin;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+import org.codehaus.plexus.util.IOUtil;
+
+/**
+ * Writes the rendered documents to disk. A document is encoded with a reusable encoder, written to a temporary
+ * file next to its target and atomically moved into place, so that a partially written document is never visible.
+ * The write is skipped when the target already has the same content, keeping its modification time stable.
+ * Instances are safe for use from several threads.
+ *
+ * @author Emmanuel Hugonnet (c) 2018 Red Hat, inc.
+ */
+final class AdocFileWriter {
+
+    /**
+     * Size of the buffer used to compare the content of an existing file.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Charset charset;
+
+    private final ThreadLocal<CharsetEncoder> encoders = new ThreadLocal<CharsetEncoder>() {
+        @Override
+        protected CharsetEncoder initialValue() {
+            return newEncoder();
+        }
+    };
+
+    private final ThreadLocal<ByteBuffer> readBuffers = new ThreadLocal<ByteBuffer>() {
+        @Override
+        protected ByteBuffer initialValue() {
+            return ByteBuffer.allocate(BUFFER_SIZE);
+        }
+    };
+
+    /**
+     * @param charset not null
+     */
+    AdocFileWriter(Charset charset) {
+        this.charset = charset;
+    }
+
+    private CharsetEncoder newEncoder() {
+        return charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * @param content not null
+     * @return the encoded content.
+     * @throws IOException if any
+     */
+    ByteBuffer encode(CharSequence content) throws IOException {
+        CharsetEncoder encoder = encoders.get();
+        encoder.reset();
+        return encoder.encode(CharBuffer.wrap(content));
+    }
+
+    /**
+     * @param target not null
+     * @param content not null
+     * @return <code>true</code> if the file has been written, <code>false</code> if it was already up to date.
+     * @throws IOException if any
+     */
+    boolean write(Path target, CharSequence content) throws IOException {
+        return write(target, encode(content));
+    }
+
+    /**
+     * @param target not null
+     * @param content not null, its position is left unchanged.
+     * @return <code>true</code> if the file has been written, <code>false</code> if it was already up to date.
+     * @throws IOException if any
+     */
+    boolean write(Path target, ByteBuffer content) throws IOException {
+        if (hasContent(target, content)) {
+            return false;
+        }
+        Path temp = createTempFile(target);
+        try {
+            FileChannel channel = null;
+            try {
+                channel = FileChannel.open(temp, StandardOpenOption.WRITE);
+                ByteBuffer bytes = content.duplicate();
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+            } finally {
+                IOUtil.close(channel);
+            }
+            move(temp, target);
+            temp = null;
+        } finally {
+            if (temp != null) {
+                Files.deleteIfExists(temp);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Opens a document which is written progressively to a temporary file, see {@link StreamedFile#commit()}.
+     *
+     * @param target not null
+     * @return the document to write.
+     * @throws IOException if any
+     */
+    StreamedFile open(Path target) throws IOException {
+        Path temp = createTempFile(target);
+        try {
+            return new StreamedFile(target, temp, new BufferedWriter(new OutputStreamWriter(
+                    Files.newOutputStream(temp, StandardOpenOption.WRITE), newEncoder()), BUFFER_SIZE));
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * @param target not null
+     * @return a new empty file next to <code>target</code>.
+     * @throws IOException if any
+     */
+    private static Path createTempFile(Path target) throws IOException {
+        // not Files.createTempFile() which restricts the permissions of the file to its owner
+        while (true) {
+            Path temp = target.resolveSibling(target.getFileName() + "."
+                    + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+            try {
+                Files.createFile(temp);
+                return temp;
+            } catch (FileAlreadyExistsException e) {
+                // try another name
+            }
+        }
+    }
+
+    /**
+     * @param source not null
+     * @param target not null
+     * @throws IOException if any
+     */
+    static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * @param file not null
+     * @param content not null, its position is left unchanged.
+     * @return <code>true</code> if <code>file</code> exists with exactly <code>content</code>.
+     * @throws IOException if any
+     */
+    private boolean hasContent(Path file, ByteBuffer content) throws IOException {
+        if (!Files.isRegularFile(file) || Files.size(file) != content.remaining()) {
+            return false;
+        }
+        ByteBuffer expected = content.duplicate();
+        ByteBuffer buffer = readBuffers.get();
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            while (expected.hasRemaining()) {
+                buffer.clear();
+                if (channel.read(buffer) < 0) {
+                    return false;
+                }
+                buffer.flip();
+                while (buffer.hasRemaining() && expected.hasRemaining()) {
+                    if (buffer.get() != expected.get()) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        } finally {
+            IOUtil.close(channel);
+        }
+    }
+
+    /**
+     * @param file not null
+     * @param other not null
+     * @return <code>true</code> if both files exist with the same content.
+     * @throws IOException if any
+     */
+    private boolean hasSameContent(Path file, Path other) throws IOException {
+        if (!Files.isRegularFile(file) || !Files.isRegularFile(other) || Files.size(file) != Files.size(other)) {
+            return false;
+        }
+        ByteBuffer buffer = readBuffers.get();
+        ByteBuffer otherBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+        FileChannel channel = null;
+        FileChannel otherChannel = null;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            otherChannel = FileChannel.open(other, StandardOpenOption.READ);
+            while (true) {
+                buffer.clear();
+                otherBuffer.clear();
+                int read = readFully(channel, buffer);
+                if (read != readFully(otherChannel, otherBuffer)) {
+                    return false;
+                }
+                if (read <= 0) {
+                    return true;
+                }
+                buffer.flip();
+                otherBuffer.flip();
+                if (!buffer.equals(otherBuffer)) {
+                    return false;
+                }
+            }
+        } finally {
+            IOUtil.close(channel);
+            IOUtil.close(otherChannel);
+        }
+    }
+
+    private static int readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        int total = 0;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    /**
+     * A document written progressively to a temporary file.
+     */
+    final class StreamedFile implements OutputSink.Entry {
+
+        private final Path target;
+
+        private Path temp;
+
+        private final Writer writer;
+
+        private StreamedFile(Path target, Path temp, Writer writer) {
+            this.target = target;
+            this.temp = temp;
+            this.writer = writer;
+        }
+
+        /**
+         * @return the writer of the document, closed by {@link #commit()} and {@link #discard()}.
+         */
+        @Override
+        public Writer getWriter() {
+            return writer;
+        }
+
+        /**
+         * Moves the document into place unless the target already has the same content.
+         *
+         * @return <code>true</code> if the file has been written, <code>false</code> if it was already up to date.
+         * @throws IOException if any
+         */
+        @Override
+        public boolean commit() throws IOException {
+            writer.close();
+            boolean written = !hasSameContent(temp, target);
+            if (written) {
+                move(temp, target);
+            } else {
+                Files.delete(temp);
+            }
+            temp = null;
+            return written;
+        }
+
+        /**
+         * Deletes the temporary file if the document hasn't been committed.
+         *
+         * @throws IOException if any
+         */
+        @Override
+        public void discard() throws IOException {
+            if (temp != null) {
+                IOUtil.close(writer);
+                Files.deleteIfExists(temp);
+                temp = null;
+            }
+        }
+    }
+}
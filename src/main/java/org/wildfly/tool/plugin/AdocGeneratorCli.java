@@ -0,0 +1,372 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.tool.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
+import org.apache.maven.tools.plugin.DefaultPluginToolsRequest;
+import org.codehaus.plexus.util.StringUtils;
+
+/**
+ * Generates the documentation of already built plugins from their <code>META-INF/maven/plugin.xml</code> descriptor,
+ * without running the Maven lifecycle. The descriptors are read from plugin jars, through zip file systems without
+ * unpacking them, or from directories: a directory containing a descriptor is documented as a plugin, any other
+ * directory is searched for plugin jars. The plugins are documented in parallel, each one in the
+ * <code>&lt;output&gt;/&lt;groupId&gt;/&lt;artifactId&gt;/&lt;version&gt;</code> directory. With
+ * <code>--common-parameters</code>, the parameters documented identically by several goals of any of the plugins
+ * are described once in <code>&lt;output&gt;/common-parameters.adoc</code>, all the descriptors being read before
+ * the plugins are documented.
+ * The build attaches a runnable jar, with the classifier <code>cli</code>, which contains the plugin tools, Plexus
+ * and Maven core it needs:
+ * <pre>
+ * java -jar adoc-maven-plugin-descriptor-&lt;version&gt;-cli.jar [-o output] [-t threads] [-l en,de] [--aggregate]
+ *     [--reproducible] [--common-parameters] [--template file] (jar|directory)...
+ * </pre>
+ *
+ * @author Emmanuel Hugonnet (c) 2018 Red Hat, inc.
+ */
+public final class AdocGeneratorCli {
+
+    /**
+     * Location of the plugin descriptor in a plugin jar.
+     */
+    static final String PLUGIN_DESCRIPTOR = "META-INF/maven/plugin.xml";
+
+    /**
+     * Path from the directory of a plugin to the output directory.
+     */
+    private static final String OUTPUT_ROOT = "../../../";
+
+    private File outputDirectory = new File("target/plugin-docs");
+
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    private final List<Locale> locales = new ArrayList<Locale>();
+
+    private boolean aggregate;
+
+    private boolean reproducible;
+
+    private boolean commonParameters;
+
+    private File template;
+
+    private final List<Path> plugins = new ArrayList<Path>();
+
+    private final FragmentCache fragmentCache = new FragmentCache();
+
+    private AdocGeneratorCli() {
+    }
+
+    public static void main(String[] args) {
+        AdocGeneratorCli cli = new AdocGeneratorCli();
+        try {
+            cli.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            usage(System.err);
+            System.exit(2);
+        }
+        int failures = cli.run();
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static void usage(PrintStream out) {
+        out.println("Usage: AdocGeneratorCli [-o output] [-t threads] [-l locales] [--aggregate] [--reproducible] "
+                + "[--common-parameters] [--template file] (jar|directory)...");
+    }
+
+    private void parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "-o":
+                case "--output":
+                    outputDirectory = new File(value(args, ++i, arg));
+                    break;
+                case "-t":
+                case "--threads":
+                    try {
+                        threads = Integer.parseInt(value(args, ++i, arg));
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Invalid number of threads " + args[i]);
+                    }
+                    if (threads < 1) {
+                        throw new IllegalArgumentException("The number of threads must be at least 1");
+                    }
+                    break;
+                case "-l":
+                case "--locales":
+                    for (String locale : StringUtils.split(value(args, ++i, arg), ",")) {
+                        locales.add(toLocale(locale.trim()));
+                    }
+                    break;
+                case "--aggregate":
+                    aggregate = true;
+                    break;
+                case "--reproducible":
+                    reproducible = true;
+                    break;
+                case "--common-parameters":
+                    commonParameters = true;
+                    break;
+                case "--template":
+                    template = new File(value(args, ++i, arg));
+                    break;
+                default:
+                    if (arg.startsWith("-")) {
+                        throw new IllegalArgumentException("Unknown option " + arg);
+                    }
+                    plugins.add(Paths.get(arg));
+            }
+        }
+        if (plugins.isEmpty()) {
+            throw new IllegalArgumentException("No plugin jar nor directory to document");
+        }
+    }
+
+    private static String value(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value of " + option);
+        }
+        return args[index];
+    }
+
+    private static Locale toLocale(String locale) {
+        String[] parts = StringUtils.split(locale, "_");
+        if (parts.length == 1) {
+            return new Locale(parts[0]);
+        } else if (parts.length == 2) {
+            return new Locale(parts[0], parts[1]);
+        } else if (parts.length > 2) {
+            return new Locale(parts[0], parts[1], parts[2]);
+        }
+        throw new IllegalArgumentException("Invalid locale " + locale);
+    }
+
+    /**
+     * Documents every plugin, reporting the failures without stopping.
+     *
+     * @return the number of plugins which couldn't be documented.
+     */
+    private int run() {
+        List<Path> sources = new ArrayList<Path>();
+        int failures = 0;
+        for (Path plugin : plugins) {
+            try {
+                collect(plugin, sources);
+            } catch (IOException e) {
+                System.err.println("Could not read " + plugin + ": " + e.getMessage());
+                failures++;
+            }
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, sources.size())));
+        try {
+            List<Future<PluginDescriptor>> reads = new ArrayList<Future<PluginDescriptor>>(sources.size());
+            for (final Path source : sources) {
+                reads.add(executor.submit(new Callable<PluginDescriptor>() {
+                    @Override
+                    public PluginDescriptor call() throws Exception {
+                        return read(source);
+                    }
+                }));
+            }
+            final List<Path> pluginSources = new ArrayList<Path>(sources.size());
+            final List<PluginDescriptor> pluginDescriptors = new ArrayList<PluginDescriptor>(sources.size());
+            for (int i = 0; i < reads.size(); i++) {
+                try {
+                    PluginDescriptor pluginDescriptor = reads.get(i).get();
+                    if (pluginDescriptor != null) {
+                        pluginSources.add(sources.get(i));
+                        pluginDescriptors.add(pluginDescriptor);
+                    }
+                } catch (ExecutionException e) {
+                    System.err.println("Could not read " + sources.get(i) + ": " + e.getCause());
+                    failures++;
+                }
+            }
+
+            final CommonParameters common = commonParameters ? new CommonParameters(OUTPUT_ROOT) : null;
+            if (common != null) {
+                for (PluginDescriptor pluginDescriptor : pluginDescriptors) {
+                    common.register(pluginDescriptor);
+                }
+            }
+            List<Future<String>> results = new ArrayList<Future<String>>(pluginDescriptors.size());
+            for (final PluginDescriptor pluginDescriptor : pluginDescriptors) {
+                results.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() throws Exception {
+                        return document(pluginDescriptor, common);
+                    }
+                }));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                try {
+                    System.out.println(pluginSources.get(i) + " -> " + results.get(i).get());
+                } catch (ExecutionException e) {
+                    System.err.println("Could not document " + pluginSources.get(i) + ": " + e.getCause());
+                    failures++;
+                }
+            }
+            if (common != null) {
+                try {
+                    writeCommonParameters(common);
+                } catch (IOException e) {
+                    System.err.println("Could not write the common parameters: " + e);
+                    failures++;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failures++;
+        } finally {
+            executor.shutdownNow();
+        }
+        return failures;
+    }
+
+    /**
+     * @param path a plugin jar, a plugin directory or a directory containing plugin jars
+     * @param sources where the plugin jars and directories are added
+     * @throws IOException if any
+     */
+    private static void collect(Path path, final List<Path> sources) throws IOException {
+        if (!Files.isDirectory(path) || Files.isRegularFile(path.resolve(PLUGIN_DESCRIPTOR))) {
+            sources.add(path);
+            return;
+        }
+        final List<Path> found = new ArrayList<Path>();
+        Files.walkFileTree(path, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if (Files.isRegularFile(dir.resolve(PLUGIN_DESCRIPTOR))) {
+                    found.add(dir);
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile() && file.getFileName().toString().endsWith(".jar")) {
+                    found.add(file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        Collections.sort(found);
+        sources.addAll(found);
+    }
+
+    /**
+     * @param source a plugin jar or directory
+     * @return the descriptor of the plugin, null if the source isn't a plugin.
+     * @throws IOException if any
+     */
+    private static PluginDescriptor read(Path source) throws IOException {
+        if (Files.isDirectory(source)) {
+            return PluginDescriptorReader.read(source.resolve(PLUGIN_DESCRIPTOR));
+        }
+        FileSystem jar = FileSystems.newFileSystem(source, (ClassLoader) null);
+        try {
+            Path descriptor = jar.getPath(PLUGIN_DESCRIPTOR);
+            if (!Files.isRegularFile(descriptor)) {
+                // not a plugin, a dependency next to the plugins
+                return null;
+            }
+            return PluginDescriptorReader.read(descriptor);
+        } finally {
+            jar.close();
+        }
+    }
+
+    /**
+     * @param pluginDescriptor not null
+     * @param common the parameters shared by the plugins, null if they aren't described in a shared document
+     * @return the directory where the plugin has been documented.
+     * @throws Exception if any
+     */
+    private String document(PluginDescriptor pluginDescriptor, CommonParameters common) throws Exception {
+        File destination = new File(outputDirectory, pluginDescriptor.getGroupId() + File.separatorChar
+                + pluginDescriptor.getArtifactId() + File.separatorChar + pluginDescriptor.getVersion());
+        if (!destination.isDirectory() && !destination.mkdirs()) {
+            throw new IOException("Could not create directory " + destination);
+        }
+        PluginAdocGenerator generator = locales.isEmpty() ? new PluginAdocGenerator()
+                : new PluginAdocGenerator(locales);
+        generator.setFragmentCache(fragmentCache);
+        generator.setTemplateFile(template);
+        generator.setAggregated(aggregate);
+        generator.setReproducible(reproducible);
+        generator.setSharedParameters(common);
+        generator.execute(destination, new DefaultPluginToolsRequest(null, pluginDescriptor));
+        return destination.getPath();
+    }
+
+    /**
+     * Writes the document describing the parameters shared by the plugins for every locale, or deletes it when no
+     * parameter is shared.
+     *
+     * @param common not null
+     * @throws IOException if any
+     */
+    private void writeCommonParameters(CommonParameters common) throws IOException {
+        AdocFileWriter fileWriter = new AdocFileWriter(StandardCharsets.UTF_8);
+        Escaper escaper = new Escaper(fragmentCache);
+        List<Locale> documented = locales.isEmpty() ? Collections.singletonList(Locale.ENGLISH) : locales;
+        for (Locale locale : documented) {
+            File directory = locales.isEmpty() ? outputDirectory : new File(outputDirectory, locale.toString());
+            Path target = new File(directory, CommonParameters.FILENAME).toPath();
+            if (common.isEmpty()) {
+                Files.deleteIfExists(target);
+                continue;
+            }
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("Could not create directory " + directory);
+            }
+            StringBuilder buffer = new StringBuilder();
+            common.render(fragmentCache.getMessages(locale, getClass().getClassLoader()), escaper, buffer);
+            if (reproducible) {
+                PluginAdocGenerator.toLineFeeds(buffer);
+            }
+            fileWriter.write(target, buffer);
+        }
+    }
+}
@@ -17,14 +17,38 @@
 package org.wildfly.tool.plugin;
 
 import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.CodeSource;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeSet;
 
 import org.apache.maven.plugin.plugin.AbstractGeneratorMojo;
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
+import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
+import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.tools.plugin.DefaultPluginToolsRequest;
 import org.apache.maven.tools.plugin.generator.Generator;
+import org.apache.maven.tools.plugin.generator.GeneratorException;
+import org.codehaus.plexus.util.StringUtils;
 
 /**
  * Generates a <code>AdocMojo</code> class.
@@ -35,12 +59,180 @@ import org.apache.maven.tools.plugin.generator.Generator;
 public class AdocGeneratorMojo
         extends AbstractGeneratorMojo {
 
+    /**
+     * Timestamp of the entries of a reproducible archive when <code>outputTimestamp</code> isn't set,
+     * 1980-01-01T00:00:00Z, the earliest time of the zip format.
+     */
+    private static final long DEFAULT_ENTRY_TIME = 315532800000L;
+
     /**
      * The directory where the generated <code>HelpMojo</code> file will be put.
      */
     @Parameter(defaultValue = "${project.build.directory}/generated-sources/plugin")
     protected File outputDirectory;
 
+    /**
+     * Only regenerate the documentation of the goals whose descriptor changed since the previous build, and
+     * delete the documentation of the goals which have been removed.
+     */
+    @Parameter(defaultValue = "false", property = "adoc.incremental")
+    protected boolean incremental;
+
+    /**
+     * The file where the fingerprints of the documented goals are kept between incremental builds.
+     */
+    @Parameter(defaultValue = "${project.build.directory}/adoc-generator.state")
+    protected File stateFile;
+
+    /**
+     * The number of threads rendering the goals documentation, 1 to render the goals sequentially. The goals
+     * written to an {@link #archive} are always rendered sequentially, so that its entries are in goal order.
+     */
+    @Parameter(defaultValue = "1", property = "adoc.generatorThreads")
+    protected int generatorThreads;
+
+    /**
+     * The maximum number of rendered goal documents queued for the writer threads, which create, write and rename
+     * the files concurrently, on virtual threads when running on Java 21 or later. The queued documents are held in
+     * memory. 0 streams each document to its file from the thread which renders it.
+     */
+    @Parameter(defaultValue = "0", property = "adoc.writeQueueSize")
+    protected int writeQueueSize;
+
+    /**
+     * A template replacing the default layout of the goals documentation. The template is parsed once and rendered
+     * for every goal, see the <code>pluginasciidoc-mojo.adoc</code> default template for its syntax and variables.
+     */
+    @Parameter(property = "adoc.template")
+    protected File template;
+
+    /**
+     * Write every goal to a single <code>plugin.adoc</code> document, starting with an index of the goals, instead
+     * of a <code>&lt;goal&gt;-mojo.adoc</code> document per goal. When the generation is incremental, switching
+     * this parameter deletes the documents written in the other mode.
+     */
+    @Parameter(defaultValue = "false", property = "adoc.aggregate")
+    protected boolean aggregate;
+
+    /**
+     * A comma separated list of locales, like <code>en,de,fr</code>, to render in one execution, each locale in a
+     * subdirectory of the output directory named after the locale. When not set, the documentation is only rendered
+     * in English, directly in the output directory.
+     */
+    @Parameter(property = "adoc.locales")
+    protected String locales;
+
+    /**
+     * The JSON file where the time spent and the bytes written for each goal documentation are reported, like
+     * <code>${project.build.directory}/adoc-generator-metrics.json</code>. No file is written when it isn't set.
+     */
+    @Parameter(property = "adoc.metricsFile")
+    protected File metricsFile;
+
+    /**
+     * Write the documentation to this zip archive, like a <code>-docs.jar</code>, in a single streaming write
+     * instead of writing it to the output directory.
+     */
+    @Parameter(property = "adoc.archive")
+    protected File archive;
+
+    /**
+     * Skip the descriptor extraction and the generation when the content of the sources, the template and the
+     * plugin configuration, and the size and modification time of the classes and the dependencies didn't change
+     * since the previous build, and the generated documentation hasn't been modified.
+     * <p>
+     * The check is all or nothing: it runs before the descriptors are extracted, so any change, even to a single
+     * goal, extracts every descriptor again and leaves the selection of the goals to document again to the
+     * {@link #incremental} generation. It doesn't avoid the resolution of the compile and runtime dependencies,
+     * which Maven performs before this goal runs.
+     */
+    @Parameter(defaultValue = "false", property = "adoc.upToDateCheck")
+    protected boolean upToDateCheck;
+
+    /**
+     * The file where the content hashes of the inputs are kept between builds for the up-to-date check.
+     */
+    @Parameter(defaultValue = "${project.build.directory}/adoc-generator.inputs")
+    protected File inputStateFile;
+
+    /**
+     * Write a JSON index of the documented parameters to <code>parameterIndexFile</code>, mapping each user
+     * property to the parameters it sets, for the tools which need them without parsing the plugin descriptor.
+     */
+    @Parameter(defaultValue = "false", property = "adoc.parameterIndex")
+    protected boolean parameterIndex;
+
+    /**
+     * The file where the JSON index of the parameters is written, next to the plugin descriptor by default so that
+     * it is packaged with the plugin.
+     */
+    @Parameter(defaultValue = "${project.build.outputDirectory}/META-INF/maven/plugin-parameters.json",
+            property = "adoc.parameterIndexFile")
+    protected File parameterIndexFile;
+
+    /**
+     * Share the converted descriptions and the localized messages between the modules of the build, so that the
+     * descriptions inherited from common mojo base classes are only converted once. At most 4096 converted
+     * descriptions are kept for the build, the least recently used being evicted. The cache outlives the modules,
+     * holding up to a few megabytes until the end of the build.
+     */
+    @Parameter(defaultValue = "false", property = "adoc.sharedCache")
+    protected boolean sharedCache;
+
+    /**
+     * Generate a reproducible documentation, byte identical for identical plugin descriptors so that the generated
+     * sources can be cached by the build: the goals and the parameters are sorted by name, the line endings are
+     * <code>\n</code>, the entries of the archive are timestamped with <code>outputTimestamp</code>, and the SHA-256
+     * digests of the documents are written to <code>plugin-docs.sha256</code>.
+     */
+    @Parameter(defaultValue = "false", property = "adoc.reproducible")
+    protected boolean reproducible;
+
+    /**
+     * The timestamp of the entries of the archive of a reproducible documentation, in ISO 8601 format like
+     * <code>2018-01-01T00:00:00Z</code> or in seconds since the epoch. When not set, the entries are timestamped
+     * with 1980-01-01T00:00:00Z.
+     */
+    @Parameter(defaultValue = "${project.build.outputTimestamp}")
+    protected String outputTimestamp;
+
+    /**
+     * Describe the parameters documented identically by several goals, like the parameters inherited from a common
+     * mojo base class, once in a <code>common-parameters.adoc</code> document which the goal documents link to.
+     */
+    @Parameter(defaultValue = "false", property = "adoc.commonParameters")
+    protected boolean commonParameters;
+
+    /**
+     * Document the goals from the <code>plugin.xml</code> descriptor already generated by the
+     * <code>maven-plugin-plugin</code> when it is more recent than the sources, instead of extracting the
+     * descriptors from the sources and the classes again. The dependencies of the project are still resolved in
+     * the compile and runtime scopes before this goal runs, as they are needed when the descriptors have to be
+     * extracted: only the <code>asciidoc-from-descriptor</code> goal, which always uses the generated descriptor,
+     * skips their resolution.
+     */
+    @Parameter(defaultValue = "false", property = "adoc.useGeneratedDescriptor")
+    protected boolean useGeneratedDescriptor;
+
+    /**
+     * The descriptor generated by the <code>maven-plugin-plugin</code>.
+     */
+    @Parameter(defaultValue = "${project.build.outputDirectory}/META-INF/maven/plugin.xml")
+    protected File generatedDescriptor;
+
+    @Parameter(defaultValue = "${session}", readonly = true, required = true)
+    protected MavenSession session;
+
+    /**
+     * The generator created for the current execution.
+     */
+    private PluginAdocGenerator generator;
+
+    /**
+     * The archive the documentation is written to, null to write it to the output directory.
+     */
+    private ZipSink archiveSink;
+
     /**
      * {@inheritDoc}
      */
@@ -52,7 +244,83 @@ public class AdocGeneratorMojo
      * {@inheritDoc}
      */
     protected Generator createGenerator() {
-        return new PluginAdocGenerator();
+        List<Locale> localeList = getLocales();
+        PluginAdocGenerator generator = localeList.isEmpty() ? new PluginAdocGenerator()
+                : new PluginAdocGenerator(localeList);
+        generator.setThreads(generatorThreads);
+        generator.setWriteQueueSize(writeQueueSize);
+        generator.setTemplateFile(template);
+        generator.setAggregated(aggregate);
+        generator.setParameterIndex(parameterIndex);
+        generator.setParameterIndexFile(parameterIndexFile);
+        generator.setOutputSink(archiveSink);
+        generator.setReproducible(reproducible);
+        generator.setCommonParameters(commonParameters);
+        if (sharedCache && session != null && session.getRepositorySession() != null) {
+            generator.setFragmentCache(FragmentCache.get(session.getRepositorySession().getData()));
+        }
+        if (incremental) {
+            generator.setStateFile(stateFile);
+        }
+        this.generator = generator;
+        return generator;
+    }
+
+    /**
+     * Logs a summary of the generation, the measures of each goal at debug level, and writes them to the metrics
+     * file if one is configured.
+     *
+     * @param metrics not null
+     * @throws MojoExecutionException if the metrics file can't be written.
+     */
+    private void reportMetrics(GenerationMetrics metrics) throws MojoExecutionException {
+        Log log = getLog();
+        if (log.isDebugEnabled()) {
+            for (GenerationMetrics.GoalMetrics goal : metrics.getGoals()) {
+                if (goal.isSkipped()) {
+                    log.debug(String.format("  %s: %d parameters, up to date", goal.getGoal(),
+                            goal.getParameters()));
+                } else {
+                    log.debug(String.format("  %s: %d parameters, %d bytes, rendered in %.3f ms, written in %.3f ms",
+                            goal.getGoal(), goal.getParameters(), goal.getBytes(), goal.getRenderNanos() / 1e6,
+                            goal.getWriteNanos() / 1e6));
+                }
+            }
+        }
+        log.info(String.format("Documentation of %s: %d of %d documents written (%d bytes) in %d ms",
+                metrics.getPlugin(), metrics.getWrittenCount(), metrics.getGoals().size(), metrics.getBytesWritten(),
+                metrics.getTotalMillis()));
+        if (metricsFile != null) {
+            try {
+                File parent = metricsFile.getAbsoluteFile().getParentFile();
+                if (!parent.isDirectory() && !parent.mkdirs()) {
+                    throw new IOException("Could not create directory " + parent);
+                }
+                new AdocFileWriter(StandardCharsets.UTF_8).write(metricsFile.toPath(), metrics.toJson());
+            } catch (IOException e) {
+                throw new MojoExecutionException("Could not write the generation metrics to " + metricsFile, e);
+            }
+        }
+    }
+
+    /**
+     * @return the locales to render, empty if none has been configured.
+     */
+    private List<Locale> getLocales() {
+        List<Locale> localeList = new ArrayList<Locale>();
+        if (StringUtils.isNotEmpty(locales)) {
+            for (String locale : StringUtils.split(locales, ",")) {
+                String[] parts = StringUtils.split(locale.trim(), "_");
+                if (parts.length == 1) {
+                    localeList.add(new Locale(parts[0]));
+                } else if (parts.length == 2) {
+                    localeList.add(new Locale(parts[0], parts[1]));
+                } else if (parts.length > 2) {
+                    localeList.add(new Locale(parts[0], parts[1], parts[2]));
+                }
+            }
+        }
+        return localeList;
     }
 
     /**
@@ -63,12 +331,286 @@ public class AdocGeneratorMojo
         // force value for this plugin
         skipErrorNoDescriptorsFound = true;
 
-        super.execute();
+        boolean fromDescriptor = !skip && isGeneratedDescriptorUsed();
+        InputState inputs = null;
+        if (upToDateCheck && !skip) {
+            try {
+                inputs = collectInputs(InputState.load(inputStateFile), fromDescriptor);
+                if (inputs.isUpToDate()) {
+                    getLog().info("Plugin documentation is up to date");
+                    inputs.keepOutputs();
+                    inputs.store(inputStateFile);
+                    addCompileSourceRoot();
+                    return;
+                }
+            } catch (IOException e) {
+                throw new MojoExecutionException("Could not check whether the documentation is up to date", e);
+            }
+        }
+
+        if (archive != null && !skip) {
+            long entryTime = reproducible ? getEntryTime() : -1;
+            File parent = archive.getAbsoluteFile().getParentFile();
+            try {
+                if (!parent.isDirectory() && !parent.mkdirs()) {
+                    throw new IOException("Could not create directory " + parent);
+                }
+                archiveSink = new ZipSink(archive);
+                archiveSink.setEntryTime(entryTime);
+            } catch (IOException e) {
+                throw new MojoExecutionException("Could not create " + archive, e);
+            }
+        }
+        try {
+            if (fromDescriptor) {
+                generateFromDescriptor();
+            } else {
+                super.execute();
+            }
+        } finally {
+            closeArchive();
+        }
+
+        if (generator != null && generator.getMetrics() != null) {
+            reportMetrics(generator.getMetrics());
+        }
+
+        if (inputs != null) {
+            try {
+                inputs.addOutputs(outputDirectory.toPath(), ".adoc", ".sha256");
+                if (parameterIndex) {
+                    inputs.addOutput(parameterIndexFile.toPath());
+                }
+                if (archive != null) {
+                    inputs.addOutput(archive.toPath());
+                }
+                inputs.store(inputStateFile);
+            } catch (IOException e) {
+                throw new MojoExecutionException("Could not write " + inputStateFile, e);
+            }
+        }
+
+        addCompileSourceRoot();
+    }
+
+    /**
+     * @return the timestamp of the entries of a reproducible archive, in milliseconds since the epoch.
+     * @throws MojoExecutionException if <code>outputTimestamp</code> isn't a valid timestamp.
+     */
+    private long getEntryTime() throws MojoExecutionException {
+        // a single character disables the timestamp, like for the other plugins
+        if (outputTimestamp == null || outputTimestamp.length() < 2) {
+            return DEFAULT_ENTRY_TIME;
+        }
+        try {
+            if (StringUtils.isNumeric(outputTimestamp)) {
+                return Long.parseLong(outputTimestamp) * 1000;
+            }
+            return OffsetDateTime.parse(outputTimestamp).toInstant().toEpochMilli();
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new MojoExecutionException("Invalid outputTimestamp " + outputTimestamp, e);
+        }
+    }
+
+    /**
+     * @return <code>true</code> if the goals are always documented from the generated descriptor, without the
+     * dependencies of the project being resolved.
+     */
+    protected boolean isGeneratedDescriptorRequired() {
+        return false;
+    }
 
-        if (!project.getCompileSourceRoots().contains(outputDirectory.getAbsolutePath()) && !skip) {
+    /**
+     * @return <code>true</code> if the goals are documented from the generated descriptor.
+     * @throws MojoExecutionException if the descriptor is required but doesn't exist or can't be checked.
+     */
+    private boolean isGeneratedDescriptorUsed() throws MojoExecutionException {
+        boolean required = isGeneratedDescriptorRequired();
+        if (!required && !useGeneratedDescriptor) {
+            return false;
+        }
+        if (generatedDescriptor == null || !generatedDescriptor.isFile()) {
+            if (required) {
+                throw new MojoExecutionException("The plugin descriptor " + generatedDescriptor + " doesn't exist, "
+                        + "the descriptor goal of the maven-plugin-plugin must be executed first");
+            }
+            return false;
+        }
+        try {
+            if (isGeneratedDescriptorUpToDate()) {
+                return true;
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not check whether " + generatedDescriptor + " is up to date", e);
+        }
+        if (required) {
+            getLog().warn("The plugin descriptor " + generatedDescriptor + " is older than the sources");
+        }
+        return required;
+    }
+
+    /**
+     * @return <code>true</code> if the generated descriptor is more recent than every java source of the project.
+     * @throws IOException if any
+     */
+    private boolean isGeneratedDescriptorUpToDate() throws IOException {
+        final long descriptorTime = generatedDescriptor.lastModified();
+        for (String root : project.getCompileSourceRoots()) {
+            Path directory = Paths.get(root);
+            if (root.equals(outputDirectory.getAbsolutePath()) || !Files.isDirectory(directory)) {
+                continue;
+            }
+            final boolean[] modified = new boolean[1];
+            Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (file.getFileName().toString().endsWith(".java")
+                            && attrs.lastModifiedTime().toMillis() > descriptorTime) {
+                        modified[0] = true;
+                        return FileVisitResult.TERMINATE;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+            if (modified[0]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Documents the goals of the generated descriptor, read with a {@link PluginDescriptorReader}.
+     *
+     * @throws MojoExecutionException if the descriptor can't be read or the documentation can't be generated.
+     */
+    private void generateFromDescriptor() throws MojoExecutionException {
+        getLog().info("Documenting the goals of " + generatedDescriptor);
+        PluginDescriptor pluginDescriptor;
+        try {
+            pluginDescriptor = PluginDescriptorReader.read(generatedDescriptor.toPath());
+        } catch (IOException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
+        File destination = getOutputDirectory();
+        if (!destination.isDirectory() && !destination.mkdirs()) {
+            throw new MojoExecutionException("Could not create directory " + destination);
+        }
+        try {
+            createGenerator().execute(destination, new DefaultPluginToolsRequest(project, pluginDescriptor)
+                    .setEncoding(encoding));
+        } catch (GeneratorException e) {
+            throw new MojoExecutionException("Error writing plugin documentation", e);
+        }
+    }
+
+    private void closeArchive() throws MojoExecutionException {
+        if (archiveSink != null) {
+            try {
+                archiveSink.close();
+            } catch (IOException e) {
+                throw new MojoExecutionException("Could not write " + archive, e);
+            } finally {
+                archiveSink = null;
+            }
+        }
+    }
+
+    /**
+     * @return <code>true</code> if the output directory is added to the compile source roots of the project.
+     */
+    protected boolean isCompileSourceRootAdded() {
+        return true;
+    }
+
+    private void addCompileSourceRoot() {
+        if (isCompileSourceRootAdded() && !project.getCompileSourceRoots().contains(outputDirectory.getAbsolutePath())
+                && !skip) {
             project.addCompileSourceRoot(outputDirectory.getAbsolutePath());
         }
+    }
 
+    /**
+     * Hashes everything the documentation is generated from: the content of the java sources, and the size and
+     * modification time of the compiled classes and the dependencies the descriptors are extracted from, or the
+     * content of the generated descriptor, the project and the plugin itself, and the configuration of this mojo.
+     *
+     * @param previous the state of the previous build, not null
+     * @param fromDescriptor <code>true</code> if the goals are documented from the generated descriptor.
+     * @return the state of the current build.
+     * @throws IOException if any
+     * @throws MojoExecutionException if the dependencies aren't resolved.
+     */
+    private InputState collectInputs(InputState previous, boolean fromDescriptor)
+            throws IOException, MojoExecutionException {
+        InputState inputs = previous.next();
+        StringBuilder configuration = new StringBuilder();
+        configuration.append(DescriptorFingerprint.LAYOUT_VERSION).append('|')
+                .append(outputDirectory.getAbsolutePath()).append('|')
+                .append(template == null ? "" : template.getAbsolutePath()).append('|')
+                .append(archive == null ? "" : archive.getAbsolutePath()).append('|')
+                .append(aggregate).append('|')
+                .append(locales).append('|')
+                .append(parameterIndex ? parameterIndexFile.getAbsolutePath() : "").append('|')
+                .append(incremental).append('|')
+                .append(reproducible).append('|')
+                .append(reproducible && archive != null ? outputTimestamp : "").append('|')
+                .append(commonParameters).append('|')
+                .append(goalPrefix).append('|')
+                .append(fromDescriptor).append('|')
+                .append(encoding).append('|')
+                .append(extractors == null ? "" : new TreeSet<String>(extractors)).append('|')
+                .append(packagingTypes).append('|')
+                .append(skipErrorNoDescriptorsFound);
+        inputs.putConfiguration(configuration.toString());
+        Path pluginJar = getPluginJar();
+        if (pluginJar != null) {
+            inputs.addClasspathInput(pluginJar);
+        }
+        if (template != null) {
+            inputs.addInput(template.toPath());
+        }
+        if (project.getFile() != null) {
+            inputs.addInput(project.getFile().toPath());
+        }
+        if (fromDescriptor) {
+            inputs.addInput(generatedDescriptor.toPath());
+            return inputs;
+        }
+        for (String root : project.getCompileSourceRoots()) {
+            if (!root.equals(outputDirectory.getAbsolutePath())) {
+                inputs.addInputs(Paths.get(root), ".java");
+            }
+        }
+        try {
+            for (String element : project.getCompileClasspathElements()) {
+                File file = new File(element);
+                if (file.isDirectory()) {
+                    inputs.addClasspathInputs(file.toPath(), ".class");
+                } else {
+                    inputs.addClasspathInput(file.toPath());
+                }
+            }
+        } catch (DependencyResolutionRequiredException e) {
+            throw new MojoExecutionException("Dependencies of the project are not resolved", e);
+        }
+        return inputs;
+    }
+
+    /**
+     * @return the jar of this plugin, whose bundles and templates the documentation depends on, null if unknown.
+     */
+    private Path getPluginJar() {
+        CodeSource codeSource = getClass().getProtectionDomain().getCodeSource();
+        URL location = codeSource == null ? null : codeSource.getLocation();
+        if (location == null || !"file".equals(location.getProtocol())) {
+            return null;
+        }
+        try {
+            return Paths.get(location.toURI());
+        } catch (URISyntaxException e) {
+            return null;
+        }
     }
 
 }
@@ -0,0 +1,502 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.tool.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import org.codehaus.plexus.util.IOUtil;
+
+/**
+ * A compiled adoc layout. The template is parsed once into a tree of nodes which is then rendered for every goal.
+ * <p>
+ * The syntax is a subset of Mustache:
+ * <ul>
+ * <li><code>{{name}}</code> appends the value of a variable;</li>
+ * <li><code>{{#name}}...{{/name}}</code> renders its content if the variable is <code>true</code> or a non empty
+ * string, once for each element if it is a list;</li>
+ * <li><code>{{^name}}...{{/name}}</code> renders its content if the variable is <code>false</code>, empty or
+ * undefined;</li>
+ * <li><code>{{@key arg...}}</code> appends the message <code>key</code> of the <code>pluginasciidoc</code>
+ * bundle, formatted with the values of the arguments; an argument starting with <code>@</code> is itself a
+ * message key;</li>
+ * <li><code>{{! comment}}</code> is ignored.</li>
+ * </ul>
+ * A line containing only a section, inverted section, closing or comment tag is removed from the output.
+ *
+ * @author Emmanuel Hugonnet (c) 2018 Red Hat, inc.
+ */
+final class AdocTemplate {
+
+    /**
+     * Class path location of the default template.
+     */
+    static final String DEFAULT_TEMPLATE = "pluginasciidoc-mojo.adoc";
+
+    /**
+     * Class path location of the header and goal index of the aggregated document.
+     */
+    static final String DEFAULT_PLUGIN_TEMPLATE = "pluginasciidoc-plugin.adoc";
+
+    /**
+     * Class path location of the document describing the parameters shared by several goals.
+     */
+    static final String DEFAULT_COMMON_TEMPLATE = "pluginasciidoc-common.adoc";
+
+    /**
+     * Class path location of the details of a single parameter.
+     */
+    static final String DEFAULT_PARAMETER_TEMPLATE = "pluginasciidoc-parameter.adoc";
+
+    private final String name;
+
+    private final List<Node> nodes;
+
+    private AdocTemplate(String name, List<Node> nodes) {
+        this.name = name;
+        this.nodes = nodes;
+    }
+
+    /**
+     * @return the default template, producing the historical layout.
+     * @throws IOException if any
+     */
+    static AdocTemplate getDefault() throws IOException {
+        return DefaultTemplates.getMojoTemplate();
+    }
+
+    /**
+     * @return the default header and goal index of the aggregated document.
+     * @throws IOException if any
+     */
+    static AdocTemplate getDefaultPlugin() throws IOException {
+        return DefaultTemplates.getPluginTemplate();
+    }
+
+    /**
+     * @return the default document describing the parameters shared by several goals.
+     * @throws IOException if any
+     */
+    static AdocTemplate getDefaultCommon() throws IOException {
+        return DefaultTemplates.getCommonTemplate();
+    }
+
+    /**
+     * @return the default details of a single parameter.
+     * @throws IOException if any
+     */
+    static AdocTemplate getDefaultParameter() throws IOException {
+        return DefaultTemplates.getParameterTemplate();
+    }
+
+    /**
+     * @param templateFile not null
+     * @return the compiled template.
+     * @throws IOException if the template can't be read or is invalid.
+     */
+    static AdocTemplate compile(File templateFile) throws IOException {
+        Reader reader = null;
+        try {
+            reader = Files.newBufferedReader(templateFile.toPath(), StandardCharsets.UTF_8);
+            return compile(templateFile.getName(), reader);
+        } finally {
+            IOUtil.close(reader);
+        }
+    }
+
+    /**
+     * @param name the name of the template, used in error messages.
+     * @param reader not null
+     * @return the compiled template.
+     * @throws IOException if the template can't be read or is invalid.
+     */
+    static AdocTemplate compile(String name, Reader reader) throws IOException {
+        Deque<Section> sections = new ArrayDeque<Section>();
+        List<Node> root = new ArrayList<Node>();
+        List<Node> current = root;
+        String text = IOUtil.toString(reader);
+        int lineNumber = 0;
+        int lineStart = 0;
+        while (lineStart < text.length()) {
+            lineNumber++;
+            int lineEnd = text.indexOf('\n', lineStart);
+            boolean newline = lineEnd >= 0;
+            if (!newline) {
+                lineEnd = text.length();
+            }
+            String line = text.substring(lineStart, lineEnd > lineStart && text.charAt(lineEnd - 1) == '\r'
+                    ? lineEnd - 1 : lineEnd);
+            lineStart = lineEnd + 1;
+            List<Object> tokens = tokenize(name, lineNumber, line);
+            Tag standalone = getStandaloneTag(tokens);
+            List<Object> kept = new ArrayList<Object>(tokens);
+            if (standalone != null) {
+                kept.clear();
+                kept.add(standalone);
+            }
+            for (Object token : kept) {
+                if (token instanceof String) {
+                    current.add(new Text((String) token));
+                    continue;
+                }
+                Tag tag = (Tag) token;
+                switch (tag.type) {
+                    case '#':
+                    case '^':
+                        Section section = new Section(tag.name, tag.type == '^');
+                        current.add(section);
+                        sections.push(section);
+                        current = section.children;
+                        break;
+                    case '/':
+                        if (sections.isEmpty() || !sections.peek().name.equals(tag.name)) {
+                            throw new IOException(name + ":" + lineNumber + ": unexpected closing tag " + tag.name);
+                        }
+                        sections.pop();
+                        current = sections.isEmpty() ? root : sections.peek().children;
+                        break;
+                    case '!':
+                        break;
+                    case '@':
+                        String[] words = tag.name.split("\\s+");
+                        String[] args = new String[words.length - 1];
+                        System.arraycopy(words, 1, args, 0, args.length);
+                        current.add(new Message(words[0], args));
+                        break;
+                    default:
+                        current.add(new Variable(tag.name));
+                }
+            }
+            if (standalone == null && newline) {
+                current.add(Newline.INSTANCE);
+            }
+        }
+        if (!sections.isEmpty()) {
+            throw new IOException(name + ": unclosed section " + sections.peek().name);
+        }
+        return new AdocTemplate(name, root);
+    }
+
+    /**
+     * Renders the template, lines being separated by the platform line separator.
+     *
+     * @param scope the variables, not null
+     * @param messages not null
+     * @param out not null
+     * @throws IOException if any
+     */
+    void render(TemplateScope scope, LocalizedMessages messages, Appendable out) throws IOException {
+        Context context = new Context(messages, out, System.lineSeparator());
+        context.scopes.push(scope);
+        render(nodes, context);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    private static void render(List<Node> nodes, Context context) throws IOException {
+        for (Node node : nodes) {
+            node.render(context);
+        }
+    }
+
+    private static List<Object> tokenize(String templateName, int lineNumber, String line) throws IOException {
+        List<Object> tokens = new ArrayList<Object>();
+        int start = 0;
+        int open;
+        while ((open = line.indexOf("{{", start)) >= 0) {
+            int close = line.indexOf("}}", open + 2);
+            if (close < 0) {
+                throw new IOException(templateName + ":" + lineNumber + ": unclosed tag");
+            }
+            if (open > start) {
+                tokens.add(line.substring(start, open));
+            }
+            String content = line.substring(open + 2, close).trim();
+            if (content.isEmpty()) {
+                throw new IOException(templateName + ":" + lineNumber + ": empty tag");
+            }
+            char type = content.charAt(0);
+            if (type == '#' || type == '^' || type == '/' || type == '!' || type == '@') {
+                tokens.add(new Tag(type, content.substring(1).trim()));
+            } else {
+                tokens.add(new Tag(' ', content));
+            }
+            start = close + 2;
+        }
+        if (start < line.length()) {
+            tokens.add(line.substring(start));
+        }
+        return tokens;
+    }
+
+    /**
+     * @param tokens the tokens of a line
+     * @return the only tag of the line if it doesn't produce any output and the rest of the line is blank.
+     */
+    private static Tag getStandaloneTag(List<Object> tokens) {
+        Tag standalone = null;
+        for (Object token : tokens) {
+            if (token instanceof String) {
+                if (!((String) token).trim().isEmpty()) {
+                    return null;
+                }
+            } else {
+                Tag tag = (Tag) token;
+                if (standalone != null || tag.type == ' ' || tag.type == '@') {
+                    return null;
+                }
+                standalone = tag;
+            }
+        }
+        return standalone;
+    }
+
+    private static final class DefaultTemplates {
+
+        private static AdocTemplate mojoTemplate;
+
+        private static AdocTemplate pluginTemplate;
+
+        private static AdocTemplate commonTemplate;
+
+        private static AdocTemplate parameterTemplate;
+
+        static synchronized AdocTemplate getMojoTemplate() throws IOException {
+            if (mojoTemplate == null) {
+                mojoTemplate = load(DEFAULT_TEMPLATE);
+            }
+            return mojoTemplate;
+        }
+
+        static synchronized AdocTemplate getPluginTemplate() throws IOException {
+            if (pluginTemplate == null) {
+                pluginTemplate = load(DEFAULT_PLUGIN_TEMPLATE);
+            }
+            return pluginTemplate;
+        }
+
+        static synchronized AdocTemplate getCommonTemplate() throws IOException {
+            if (commonTemplate == null) {
+                commonTemplate = load(DEFAULT_COMMON_TEMPLATE);
+            }
+            return commonTemplate;
+        }
+
+        static synchronized AdocTemplate getParameterTemplate() throws IOException {
+            if (parameterTemplate == null) {
+                parameterTemplate = load(DEFAULT_PARAMETER_TEMPLATE);
+            }
+            return parameterTemplate;
+        }
+
+        private static AdocTemplate load(String resource) throws IOException {
+            InputStream in = AdocTemplate.class.getClassLoader().getResourceAsStream(resource);
+            if (in == null) {
+                throw new IOException("Could not find the default template " + resource);
+            }
+            try {
+                return compile(resource, new InputStreamReader(in, StandardCharsets.UTF_8));
+            } finally {
+                IOUtil.close(in);
+            }
+        }
+    }
+
+    private static final class Tag {
+
+        private final char type;
+
+        private final String name;
+
+        Tag(char type, String name) {
+            this.type = type;
+            this.name = name;
+        }
+    }
+
+    private static final class Context {
+
+        private final LocalizedMessages messages;
+
+        private final Appendable out;
+
+        private final String lineSeparator;
+
+        private final Deque<TemplateScope> scopes = new ArrayDeque<TemplateScope>();
+
+        Context(LocalizedMessages messages, Appendable out, String lineSeparator) {
+            this.messages = messages;
+            this.out = out;
+            this.lineSeparator = lineSeparator;
+        }
+
+        Object resolve(String name) {
+            for (TemplateScope scope : scopes) {
+                Object value = scope.resolve(name);
+                if (value != TemplateScope.UNDEFINED) {
+                    return value;
+                }
+            }
+            return null;
+        }
+    }
+
+    private interface Node {
+
+        void render(Context context) throws IOException;
+    }
+
+    private static final class Text implements Node {
+
+        private final String text;
+
+        Text(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public void render(Context context) throws IOException {
+            context.out.append(text);
+        }
+    }
+
+    private static final class Newline implements Node {
+
+        static final Newline INSTANCE = new Newline();
+
+        @Override
+        public void render(Context context) throws IOException {
+            context.out.append(context.lineSeparator);
+        }
+    }
+
+    private static final class Variable implements Node {
+
+        private final String name;
+
+        Variable(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void render(Context context) throws IOException {
+            Object value = context.resolve(name);
+            if (value instanceof CharSequence) {
+                context.out.append((CharSequence) value);
+            } else if (value != null) {
+                context.out.append(value.toString());
+            }
+        }
+    }
+
+    private static final class Message implements Node {
+
+        private final String key;
+
+        private final String[] args;
+
+        Message(String key, String[] args) {
+            this.key = key;
+            this.args = args;
+        }
+
+        @Override
+        public void render(Context context) throws IOException {
+            if (args.length == 0) {
+                context.out.append(context.messages.getString(key));
+                return;
+            }
+            Object[] values = new Object[args.length];
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].startsWith("@")) {
+                    values[i] = context.messages.getString(args[i].substring(1));
+                } else {
+                    values[i] = context.resolve(args[i]);
+                }
+            }
+            context.messages.formatTo(context.out, key, values);
+        }
+    }
+
+    private static final class Section implements Node {
+
+        private final String name;
+
+        private final boolean inverted;
+
+        private final List<Node> children = new ArrayList<Node>();
+
+        Section(String name, boolean inverted) {
+            this.name = name;
+            this.inverted = inverted;
+        }
+
+        @Override
+        public void render(Context context) throws IOException {
+            Object value = context.resolve(name);
+            if (inverted) {
+                if (!isTruthy(value)) {
+                    AdocTemplate.render(children, context);
+                }
+            } else if (value instanceof Iterable) {
+                for (Object element : (Iterable<?>) value) {
+                    renderIn((TemplateScope) element, context);
+                }
+            } else if (value instanceof TemplateScope) {
+                renderIn((TemplateScope) value, context);
+            } else if (isTruthy(value)) {
+                AdocTemplate.render(children, context);
+            }
+        }
+
+        private void renderIn(TemplateScope scope, Context context) throws IOException {
+            context.scopes.push(scope);
+            try {
+                AdocTemplate.render(children, context);
+            } finally {
+                context.scopes.pop();
+            }
+        }
+
+        private static boolean isTruthy(Object value) {
+            if (value == null) {
+                return false;
+            }
+            if (value instanceof Boolean) {
+                return (Boolean) value;
+            }
+            if (value instanceof CharSequence) {
+                return ((CharSequence) value).length() > 0;
+            }
+            if (value instanceof Iterable) {
+                return ((Iterable<?>) value).iterator().hasNext();
+            }
+            return true;
+        }
+    }
+}
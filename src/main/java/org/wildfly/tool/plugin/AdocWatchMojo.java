@@ -0,0 +1,289 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.tool.plugin;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.tools.plugin.generator.Generator;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+
+/**
+ * Regenerates the AsciiDoc documentation of the goals whenever the sources, the classes or the template change,
+ * until the build is interrupted, to preview the documentation while writing the javadoc of the mojos. The
+ * generator, with its compiled template, its messages and its converted descriptions, is kept between the
+ * regenerations, which are incremental: only the documents of the goals whose descriptor changed are written.
+ * When the <code>plugin.xml</code> descriptor generated by the <code>maven-plugin-plugin</code> exists, the
+ * descriptor and the template are watched instead of the sources, and a regeneration only reads the descriptor, see
+ * <code>watchGeneratedDescriptor</code>.
+ *
+ * @author Emmanuel Hugonnet (c) 2018 Red Hat, inc.
+ */
+@Mojo(name = "asciidoc-watch", requiresDirectInvocation = true,
+        requiresDependencyResolution = ResolutionScope.COMPILE_PLUS_RUNTIME)
+public class AdocWatchMojo extends AdocGeneratorMojo {
+
+    /**
+     * The quiet period in milliseconds after the last change before the documentation is regenerated, so that a
+     * burst of saves or a compilation leads to a single regeneration.
+     */
+    @Parameter(defaultValue = "200", property = "adoc.watchDebounce")
+    protected long watchDebounce;
+
+    /**
+     * Regenerate the documentation from the <code>plugin.xml</code> descriptor generated by the
+     * <code>maven-plugin-plugin</code> when it exists, watching the descriptor instead of the sources and the
+     * classes. A regeneration then reads the descriptor in milliseconds instead of extracting every descriptor again,
+     * and a change of the sources is documented once the <code>descriptor</code> goal of the
+     * <code>maven-plugin-plugin</code> has been executed again, like by <code>mvn process-classes</code>.
+     */
+    @Parameter(defaultValue = "true", property = "adoc.watchGeneratedDescriptor")
+    protected boolean watchGeneratedDescriptor;
+
+    @Parameter(defaultValue = "${mojoExecution}", readonly = true, required = true)
+    protected MojoExecution mojoExecution;
+
+    /**
+     * The generator kept between the regenerations.
+     */
+    private PluginAdocGenerator watchGenerator;
+
+    /**
+     * The watched directories, keyed by their watch key.
+     */
+    private final Map<WatchKey, Path> directories = new HashMap<WatchKey, Path>();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Generator createGenerator() {
+        if (watchGenerator == null) {
+            watchGenerator = (PluginAdocGenerator) super.createGenerator();
+        }
+        return watchGenerator;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void execute() throws MojoExecutionException {
+        if (skip) {
+            super.execute();
+            return;
+        }
+        // the documentation is previewed in the output directory, only the goals which changed are regenerated
+        if (!incremental && isConfigured("incremental", "adoc.incremental")) {
+            getLog().warn("The documentation is always regenerated incrementally while watching, incremental is "
+                    + "ignored");
+        }
+        incremental = true;
+        if (upToDateCheck) {
+            getLog().warn("The documentation is regenerated on every change while watching, upToDateCheck is "
+                    + "ignored");
+            upToDateCheck = false;
+        }
+        if (archive != null) {
+            getLog().warn("The documentation is previewed in " + outputDirectory + " while watching, the archive "
+                    + archive + " isn't written");
+            archive = null;
+        }
+        boolean fromDescriptor = watchGeneratedDescriptor && generatedDescriptor != null
+                && generatedDescriptor.isFile();
+        if (fromDescriptor) {
+            useGeneratedDescriptor = true;
+        }
+        regenerate();
+
+        WatchService watcher = null;
+        try {
+            watcher = FileSystems.getDefault().newWatchService();
+            if (fromDescriptor) {
+                watch(watcher, generatedDescriptor.getAbsoluteFile().getParentFile().toPath());
+            } else {
+                for (String root : project.getCompileSourceRoots()) {
+                    if (!root.equals(outputDirectory.getAbsolutePath())) {
+                        register(watcher, Paths.get(root));
+                    }
+                }
+                register(watcher, Paths.get(project.getBuild().getOutputDirectory()));
+            }
+            if (template != null && template.getAbsoluteFile().getParentFile() != null) {
+                watch(watcher, template.getAbsoluteFile().getParentFile().toPath());
+            }
+            if (fromDescriptor) {
+                getLog().info("Watching " + generatedDescriptor + " for changes, execute the descriptor goal of the "
+                        + "maven-plugin-plugin to document the changes of the sources, interrupt the build to stop");
+            } else {
+                getLog().info("Watching " + directories.size() + " directories for changes, interrupt the build to "
+                        + "stop");
+            }
+            while (true) {
+                boolean changed = processEvents(watcher, watcher.take());
+                // wait for the end of the burst of changes
+                WatchKey key = watcher.poll(watchDebounce, TimeUnit.MILLISECONDS);
+                while (key != null) {
+                    changed |= processEvents(watcher, key);
+                    key = watcher.poll(watchDebounce, TimeUnit.MILLISECONDS);
+                }
+                if (changed) {
+                    regenerate();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not watch the sources of the plugin", e);
+        } finally {
+            if (watcher != null) {
+                try {
+                    watcher.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    /**
+     * Regenerates the documentation, the errors being logged so that the watch goes on.
+     */
+    private void regenerate() {
+        long start = System.nanoTime();
+        try {
+            super.execute();
+            getLog().info(String.format("Documentation regenerated in %d ms",
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+        } catch (MojoExecutionException | RuntimeException e) {
+            getLog().error("Could not regenerate the documentation", e);
+        }
+    }
+
+    /**
+     * @param name the name of a parameter of this goal, not null
+     * @param property the user property of the parameter, not null
+     * @return <code>true</code> if the parameter is set by the configuration of the execution or by its property,
+     * instead of taking its default value.
+     */
+    private boolean isConfigured(String name, String property) {
+        if (session != null && session.getUserProperties().getProperty(property) != null) {
+            return true;
+        }
+        Xpp3Dom configuration = mojoExecution == null ? null : mojoExecution.getConfiguration();
+        Xpp3Dom parameter = configuration == null ? null : configuration.getChild(name);
+        // a parameter which isn't configured is set to the expression of its property
+        return parameter != null && parameter.getValue() != null && !parameter.getValue().startsWith("${");
+    }
+
+    /**
+     * @param watcher not null
+     * @param key the signalled key, not null
+     * @return <code>true</code> if a source, a class, the descriptor or the template changed.
+     * @throws IOException if a created directory can't be watched.
+     */
+    private boolean processEvents(WatchService watcher, WatchKey key) throws IOException {
+        Path directory = directories.get(key);
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                changed = true;
+                continue;
+            }
+            Path path = directory.resolve((Path) event.context());
+            if (event.kind() == ENTRY_CREATE && Files.isDirectory(path)) {
+                register(watcher, path);
+                changed = true;
+            } else {
+                changed |= isWatched(path);
+            }
+        }
+        if (!key.reset()) {
+            directories.remove(key);
+        }
+        return changed;
+    }
+
+    /**
+     * @param path not null
+     * @return <code>true</code> if the documentation depends on the file.
+     */
+    private boolean isWatched(Path path) {
+        String name = path.getFileName().toString();
+        if (template != null && path.toFile().getAbsoluteFile().equals(template.getAbsoluteFile())) {
+            if (watchGenerator != null) {
+                // recompiled by the next regeneration
+                watchGenerator.setTemplateFile(template);
+            }
+            return true;
+        }
+        return name.endsWith(".java") || name.endsWith(".class")
+                || (generatedDescriptor != null && name.equals(generatedDescriptor.getName()));
+    }
+
+    /**
+     * Watches a directory and its subdirectories.
+     *
+     * @param watcher not null
+     * @param root not null
+     * @throws IOException if any
+     */
+    private void register(final WatchService watcher, Path root) throws IOException {
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (dir.toFile().equals(outputDirectory.getAbsoluteFile())) {
+                    // the generated documentation
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                watch(watcher, dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void watch(WatchService watcher, Path directory) throws IOException {
+        if (!directories.containsValue(directory)) {
+            directories.put(directory.register(watcher, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), directory);
+        }
+    }
+}
@@ -0,0 +1,332 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.tool.plugin;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.maven.plugin.descriptor.MojoDescriptor;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
+import org.codehaus.plexus.util.StringUtils;
+
+/**
+ * The parameters documented identically by several goals, possibly of several plugins, described once in a shared
+ * <code>common-parameters.adoc</code> document which the goal documents link to. Two parameters are identical when
+ * they have the same name, the same type and the same description. A parameter is registered by the hash of its
+ * type and description, only the first occurrence being kept to render the shared document, so that registering
+ * tens of thousands of parameters doesn't hold their rendered descriptions. Instances are safe for use from several
+ * threads.
+ *
+ * @author Emmanuel Hugonnet (c) 2018 Red Hat, inc.
+ */
+public final class CommonParameters {
+
+    /**
+     * Name of the shared document.
+     */
+    public static final String FILENAME = "common-parameters.adoc";
+
+    private static final Comparator<Entry> BY_ANCHOR = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry entry, Entry other) {
+            return entry.anchor.compareTo(other.anchor);
+        }
+    };
+
+    private final ConcurrentMap<Key, Entry> entries = new ConcurrentHashMap<Key, Entry>();
+
+    private final String rootPath;
+
+    /**
+     * @param rootPath the path from the directory the goal documents are generated to the directory of the shared
+     * document, empty if they are in the same directory, ending with a <code>/</code> otherwise.
+     */
+    public CommonParameters(String rootPath) {
+        this.rootPath = rootPath;
+    }
+
+    /**
+     * @return the path from the directory the goal documents are generated to the directory of the shared document.
+     */
+    String getRootPath() {
+        return rootPath;
+    }
+
+    /**
+     * Registers the parameters of every goal of the plugin.
+     *
+     * @param pluginDescriptor not null
+     */
+    public void register(PluginDescriptor pluginDescriptor) {
+        @SuppressWarnings("unchecked")
+        List<MojoDescriptor> mojos = pluginDescriptor.getMojos();
+        if (mojos != null) {
+            for (MojoDescriptor mojoDescriptor : mojos) {
+                register(new MojoModel(mojoDescriptor));
+            }
+        }
+    }
+
+    /**
+     * Registers the parameters of a goal, the parameters without a description being ignored.
+     *
+     * @param model not null
+     */
+    void register(MojoModel model) {
+        for (ParameterModel parameter : model.getParameters()) {
+            Key key = toKey(parameter);
+            if (key == null) {
+                continue;
+            }
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                Entry created = new Entry(parameter, "common-" + parameter.getName() + "-" + key.getShortHash());
+                entry = entries.putIfAbsent(key, created);
+                if (entry == null) {
+                    entry = created;
+                }
+            }
+            entry.count.incrementAndGet();
+        }
+    }
+
+    /**
+     * @param parameter not null
+     * @return the anchor of the parameter in the shared document, null if no other goal documents it identically.
+     */
+    String getAnchor(ParameterModel parameter) {
+        Key key = toKey(parameter);
+        Entry entry = key == null ? null : entries.get(key);
+        return entry != null && entry.count.get() > 1 ? entry.anchor : null;
+    }
+
+    /**
+     * @param model not null
+     * @return the anchors of the shared parameters of the goal, identifying the links of its document.
+     */
+    String getAnchors(MojoModel model) {
+        StringBuilder anchors = new StringBuilder();
+        for (ParameterModel parameter : model.getParameters()) {
+            String anchor = getAnchor(parameter);
+            if (anchor != null) {
+                anchors.append(anchor).append(',');
+            }
+        }
+        return anchors.toString();
+    }
+
+    /**
+     * @return <code>true</code> if no parameter is documented identically by several goals.
+     */
+    public boolean isEmpty() {
+        for (Entry entry : entries.values()) {
+            if (entry.count.get() > 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Renders the shared document, the parameters being sorted by anchor.
+     *
+     * @param messages not null
+     * @param escaper not null
+     * @param out not null
+     * @throws IOException if any
+     */
+    void render(LocalizedMessages messages, Escaper escaper, Appendable out) throws IOException {
+        final List<Entry> shared = new ArrayList<Entry>();
+        for (Entry entry : entries.values()) {
+            if (entry.count.get() > 1) {
+                shared.add(entry);
+            }
+        }
+        Collections.sort(shared, BY_ANCHOR);
+        AdocTemplate.getDefaultCommon().render(new CommonScope(shared, escaper), messages, out);
+    }
+
+    /**
+     * @param parameter not null
+     * @return the key of the parameter, null if it has no description.
+     */
+    private static Key toKey(ParameterModel parameter) {
+        String description = parameter.getParameter().getDescription();
+        if (StringUtils.isEmpty(description)) {
+            return null;
+        }
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        String type = parameter.getType();
+        if (type != null) {
+            digest.update(type.getBytes(StandardCharsets.UTF_8));
+        }
+        digest.update((byte) 0);
+        byte[] hash = digest.digest(description.getBytes(StandardCharsets.UTF_8));
+        return new Key(parameter.getName(), type, toLong(hash, 0), toLong(hash, 8));
+    }
+
+    private static long toLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = offset; i < offset + 8; i++) {
+            value = (value << 8) | (bytes[i] & 0xff);
+        }
+        return value;
+    }
+
+    /**
+     * Identifies a parameter by its name, its type and the 128 first bits of the hash of its type and description.
+     */
+    private static final class Key {
+
+        private final String name;
+
+        private final String type;
+
+        private final long high;
+
+        private final long low;
+
+        Key(String name, String type, long high, long low) {
+            this.name = name;
+            this.type = type;
+            this.high = high;
+            this.low = low;
+        }
+
+        /**
+         * @return the 32 first bits of the hash, in hexadecimal.
+         */
+        String getShortHash() {
+            String hex = Long.toHexString((high >>> 32) | 0x100000000L);
+            return hex.substring(hex.length() - 8);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return high == other.high && low == other.low && name.equals(other.name)
+                    && (type == null ? other.type == null : type.equals(other.type));
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * name.hashCode() + (int) (high ^ (high >>> 32));
+        }
+    }
+
+    /**
+     * A shared parameter, described by its first occurrence.
+     */
+    private static final class Entry {
+
+        private final ParameterModel parameter;
+
+        private final String anchor;
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        Entry(ParameterModel parameter, String anchor) {
+            this.parameter = parameter;
+            this.anchor = anchor;
+        }
+    }
+
+    /**
+     * The variables of the shared document.
+     */
+    private static final class CommonScope implements TemplateScope {
+
+        private final List<Entry> shared;
+
+        private final Escaper escaper;
+
+        CommonScope(List<Entry> shared, Escaper escaper) {
+            this.shared = shared;
+            this.escaper = escaper;
+        }
+
+        @Override
+        public Object resolve(String name) {
+            switch (name) {
+                case "parameters":
+                    // created while the parameters are rendered, like the parameters of a goal
+                    return new AbstractList<TemplateScope>() {
+                        @Override
+                        public TemplateScope get(int index) {
+                            return new EntryScope(shared.get(index), escaper);
+                        }
+
+                        @Override
+                        public int size() {
+                            return shared.size();
+                        }
+                    };
+                default:
+                    return UNDEFINED;
+            }
+        }
+    }
+
+    /**
+     * The variables of a shared parameter.
+     */
+    private static final class EntryScope implements TemplateScope {
+
+        private final Entry entry;
+
+        private final Escaper escaper;
+
+        EntryScope(Entry entry, Escaper escaper) {
+            this.entry = entry;
+            this.escaper = escaper;
+        }
+
+        @Override
+        public Object resolve(String name) {
+            switch (name) {
+                case "anchor":
+                    return entry.anchor;
+                case "name":
+                    return entry.parameter.getName();
+                case "type":
+                    return entry.parameter.getType();
+                case "description":
+                    return HtmlToAsciidoc.closeBlock(
+                            escaper.htmlToAsciidoc(entry.parameter.getParameter().getDescription()));
+                default:
+                    return UNDEFINED;
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.tool.plugin;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * The SHA-256 digests of the generated documents, written as <code>plugin-docs.sha256</code> in the format of
+ * <code>sha256sum</code>, sorted by path and with <code>\n</code> line endings, so that identical documents produce
+ * an identical manifest. Instances are safe for use from several threads.
+ *
+ * @author Emmanuel Hugonnet (c) 2018 Red Hat, inc.
+ */
+final class ContentManifest {
+
+    /**
+     * Name of the manifest in the output directory.
+     */
+    static final String FILENAME = "plugin-docs.sha256";
+
+    private final Map<String, String> digests = new ConcurrentSkipListMap<String, String>();
+
+    /**
+     * @param path the path of the document in the output sink, not null
+     * @param content the encoded document, not null, its position is left unchanged.
+     * @return the digest of the document.
+     */
+    String add(String path, ByteBuffer content) {
+        MessageDigest digest = newDigest();
+        digest.update(content.duplicate());
+        String hex = toHex(digest.digest());
+        digests.put(path, hex);
+        return hex;
+    }
+
+    /**
+     * @param path the path of the document in the output sink, not null
+     * @param digest the hexadecimal digest of the document, not null
+     */
+    void add(String path, String digest) {
+        digests.put(path, digest);
+    }
+
+    /**
+     * @param path not null
+     * @return the hexadecimal digest of the document, null if it isn't in the manifest.
+     */
+    String getDigest(String path) {
+        return digests.get(path);
+    }
+
+    /**
+     * @return the digests keyed by the path of the documents, sorted by path.
+     */
+    Map<String, String> getDigests() {
+        return Collections.unmodifiableMap(digests);
+    }
+
+    /**
+     * @return the manifest, a line per document.
+     */
+    String toText() {
+        StringBuilder buffer = new StringBuilder(digests.size() * 100);
+        for (Map.Entry<String, String> entry : digests.entrySet()) {
+            buffer.append(entry.getValue()).append("  ").append(entry.getKey()).append('\n');
+        }
+        return buffer.toString();
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Digests the UTF-8 encoding of a document while it is streamed to the output sink.
+     */
+    static final class DigestWriter extends FilterWriter {
+
+        private final MessageDigest digest = newDigest();
+
+        private final Writer encoder = new OutputStreamWriter(new DigestOutputStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+                // only digested
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                // only digested
+            }
+        }, digest), StandardCharsets.UTF_8);
+
+        /**
+         * @param out the writer of the document, not null
+         */
+        DigestWriter(Writer out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            out.write(c);
+            encoder.write(c);
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            out.write(cbuf, off, len);
+            encoder.write(cbuf, off, len);
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            out.write(str, off, len);
+            encoder.write(str, off, len);
+        }
+
+        /**
+         * @return the hexadecimal digest of everything written so far, the writer mustn't be used afterwards.
+         * @throws IOException if any
+         */
+        String digest() throws IOException {
+            encoder.close();
+            return toHex(digest.digest());
+        }
+    }
+}
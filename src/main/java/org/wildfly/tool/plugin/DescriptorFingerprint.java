@@ -0,0 +1,134 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.tool.plugin;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Locale;
+import org.apache.maven.plugin.descriptor.MojoDescriptor;
+import org.apache.maven.plugin.descriptor.Parameter;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
+import org.apache.maven.tools.plugin.ExtendedMojoDescriptor;
+
+/**
+ * Computes a digest of everything from a <code>MojoDescriptor</code> that ends up in its documentation.
+ *
+ * @author Emmanuel Hugonnet (c) 2018 Red Hat, inc.
+ */
+final class DescriptorFingerprint {
+
+    /**
+     * Bump when the generated layout changes so that existing outputs get regenerated.
+     */
+    static final String LAYOUT_VERSION = "3";
+
+    private final MessageDigest digest;
+
+    private DescriptorFingerprint() {
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param mojoDescriptor not null
+     * @param locale not null
+     * @param template identifies the template rendering the goal, not null
+     * @return the hexadecimal fingerprint of the goal documentation.
+     */
+    static String compute(MojoDescriptor mojoDescriptor, Locale locale, String template) {
+        DescriptorFingerprint fingerprint = new DescriptorFingerprint();
+        fingerprint.update(LAYOUT_VERSION);
+        fingerprint.update(locale.toString());
+        fingerprint.update(template);
+
+        PluginDescriptor pluginDescriptor = mojoDescriptor.getPluginDescriptor();
+        fingerprint.update(pluginDescriptor.getGroupId());
+        fingerprint.update(pluginDescriptor.getArtifactId());
+        fingerprint.update(pluginDescriptor.getVersion());
+        fingerprint.update(pluginDescriptor.getName());
+        fingerprint.update(pluginDescriptor.getDescription());
+
+        fingerprint.update(mojoDescriptor.getGoal());
+        fingerprint.update(mojoDescriptor.getFullGoalName());
+        fingerprint.update(mojoDescriptor.getDeprecated());
+        fingerprint.update(mojoDescriptor.getDescription());
+        fingerprint.update(mojoDescriptor.isProjectRequired());
+        fingerprint.update(mojoDescriptor.isRequiresReports());
+        fingerprint.update(mojoDescriptor.isAggregator());
+        fingerprint.update(mojoDescriptor.isDirectInvocationOnly());
+        fingerprint.update(mojoDescriptor.isDependencyResolutionRequired());
+        if (mojoDescriptor instanceof ExtendedMojoDescriptor) {
+            ExtendedMojoDescriptor extendedMojoDescriptor = (ExtendedMojoDescriptor) mojoDescriptor;
+            fingerprint.update(extendedMojoDescriptor.getDependencyCollectionRequired());
+            fingerprint.update(extendedMojoDescriptor.isThreadSafe());
+        }
+        fingerprint.update(mojoDescriptor.getSince());
+        fingerprint.update(mojoDescriptor.getPhase());
+        fingerprint.update(mojoDescriptor.getExecutePhase());
+        fingerprint.update(mojoDescriptor.getExecuteGoal());
+        fingerprint.update(mojoDescriptor.getExecuteLifecycle());
+        fingerprint.update(mojoDescriptor.isOnlineRequired());
+        fingerprint.update(mojoDescriptor.isInheritedByDefault());
+
+        @SuppressWarnings("unchecked")
+        List<Parameter> parameters = mojoDescriptor.getParameters();
+        if (parameters != null) {
+            for (Parameter parameter : parameters) {
+                fingerprint.update(parameter.getName());
+                fingerprint.update(parameter.getType());
+                fingerprint.update(parameter.isRequired());
+                fingerprint.update(parameter.isEditable());
+                fingerprint.update(parameter.getExpression());
+                fingerprint.update(parameter.getDefaultValue());
+                fingerprint.update(parameter.getAlias());
+                fingerprint.update(parameter.getSince());
+                fingerprint.update(parameter.getDeprecated());
+                fingerprint.update(parameter.getDescription());
+            }
+        }
+        return fingerprint.toHex();
+    }
+
+    private void update(boolean value) {
+        digest.update(value ? (byte) 1 : (byte) 0);
+    }
+
+    private void update(String value) {
+        if (value == null) {
+            digest.update((byte) 0);
+        } else {
+            digest.update((byte) 1);
+            digest.update(value.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+    }
+
+    private String toHex() {
+        byte[] bytes = digest.digest();
+        StringBuilder buffer = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            buffer.append(Character.forDigit((b >> 4) & 0xF, 16));
+            buffer.append(Character.forDigit(b & 0xF, 16));
+        }
+        return buffer.toString();
+    }
+}
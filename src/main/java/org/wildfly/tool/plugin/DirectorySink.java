@@ -0,0 +1,88 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.tool.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes the documents to a directory, see {@link AdocFileWriter} for how each file is written. The directories
+ * of the documents are created as needed.
+ *
+ * @author Emmanuel Hugonnet (c) 2018 Red Hat, inc.
+ */
+public final class DirectorySink implements OutputSink {
+
+    private final Path directory;
+
+    private final AdocFileWriter fileWriter;
+
+    /**
+     * @param directory not null
+     */
+    public DirectorySink(File directory) {
+        this(directory, new AdocFileWriter(StandardCharsets.UTF_8));
+    }
+
+    DirectorySink(File directory, AdocFileWriter fileWriter) {
+        this.directory = directory.toPath();
+        this.fileWriter = fileWriter;
+    }
+
+    @Override
+    public boolean write(String path, ByteBuffer content) throws IOException {
+        return fileWriter.write(resolve(path), content);
+    }
+
+    @Override
+    public Entry open(String path) throws IOException {
+        return fileWriter.open(resolve(path));
+    }
+
+    @Override
+    public boolean exists(String path) {
+        return Files.isRegularFile(directory.resolve(path));
+    }
+
+    @Override
+    public void delete(String path) throws IOException {
+        Files.deleteIfExists(directory.resolve(path));
+    }
+
+    @Override
+    public void close() {
+        // every document is complete once written
+    }
+
+    /**
+     * @param path not null
+     * @return the file of the document, its directory being created if needed.
+     * @throws IOException if any
+     */
+    private Path resolve(String path) throws IOException {
+        Path target = directory.resolve(path);
+        Path parent = target.getParent();
+        if (parent != null && !Files.isDirectory(parent)) {
+            Files.createDirectories(parent);
+        }
+        return target;
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.tool.plugin;
+
+import java.io.IOException;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Single pass escaping of the descriptor texts. An instance memoizes the escaped texts of the goal being rendered,
+ * so that the parameter summary and the parameter details don't escape the same values twice. Instances are not
+ * thread safe and are meant to be used for the rendering of a single goal. The descriptions converted to AsciiDoc
+ * may also be shared with the other goals of the build through a {@link FragmentCache}.
+ *
+ * @author Emmanuel Hugonnet (c) 2018 Red Hat, inc.
+ */
+final class Escaper {
+
+    private final Map<String, String> xmlTexts = new IdentityHashMap<String, String>();
+
+    private final Map<String, String> htmlTexts = new IdentityHashMap<String, String>();
+
+    private final FragmentCache fragmentCache;
+
+    Escaper() {
+        this(null);
+    }
+
+    /**
+     * @param fragmentCache the descriptions converted by the other goals of the build, null if not shared.
+     */
+    Escaper(FragmentCache fragmentCache) {
+        this.fragmentCache = fragmentCache;
+    }
+
+    /**
+     * @param text the string to escape
+     * @return A string escaped with XML entities
+     */
+    String escapeXml(String text) {
+        if (text == null) {
+            return null;
+        }
+        String escaped = xmlTexts.get(text);
+        if (escaped == null) {
+            escaped = toXml(text);
+            xmlTexts.put(text, escaped);
+        }
+        return escaped;
+    }
+
+    /**
+     * @param text the javadoc description
+     * @return the description converted to AsciiDoc.
+     */
+    String htmlToAsciidoc(String text) {
+        String valid = htmlTexts.get(text);
+        if (valid == null) {
+            valid = fragmentCache != null ? fragmentCache.htmlToAsciidoc(text) : HtmlToAsciidoc.convert(text);
+            htmlTexts.put(text, valid);
+        }
+        return valid;
+    }
+
+    /**
+     * @param text not null
+     * @return <code>text</code> escaped with XML entities, <code>text</code> itself if nothing needs escaping.
+     */
+    static String toXml(String text) {
+        int index = 0;
+        while (index < text.length() && xmlEntity(text.charAt(index)) == null) {
+            index++;
+        }
+        if (index == text.length()) {
+            return text;
+        }
+        StringBuilder buffer = new StringBuilder(text.length() + 16);
+        buffer.append(text, 0, index);
+        appendXml(text.subSequence(index, text.length()), buffer);
+        return buffer.toString();
+    }
+
+    /**
+     * @param text not null
+     * @param out where the text escaped with XML entities is appended.
+     */
+    static void appendXml(CharSequence text, StringBuilder out) {
+        try {
+            appendXml(text, (Appendable) out);
+        } catch (IOException e) {
+            // can't happen with a StringBuilder
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param text not null
+     * @param out where the text escaped with XML entities is appended.
+     * @throws IOException if any
+     */
+    static void appendXml(CharSequence text, Appendable out) throws IOException {
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            String entity = xmlEntity(text.charAt(i));
+            if (entity != null) {
+                out.append(text, start, i).append(entity);
+                start = i + 1;
+            }
+        }
+        out.append(text, start, text.length());
+    }
+
+    private static String xmlEntity(char c) {
+        switch (c) {
+            case '&':
+                return "&amp;";
+            case '<':
+                return "&lt;";
+            case '>':
+                return "&gt;";
+            case '"':
+                return "&quot;";
+            case '\'':
+                return "&apos;";
+            default:
+                return null;
+        }
+    }
+}
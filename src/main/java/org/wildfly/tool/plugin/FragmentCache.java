@@ -0,0 +1,142 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.tool.plugin;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.eclipse.aether.SessionData;
+
+/**
+ * Converted fragments shared by the generations of a whole build. The descriptions inherited from common mojo base
+ * classes are documented by every module, they are only converted to AsciiDoc once, and the resource bundle and the
+ * message formats of each locale are only loaded once. The conversion of a description doesn't depend on the
+ * locale, only the messages of the templates do, so a converted description is keyed by its text alone and shared
+ * by every locale. The number of converted descriptions is bounded, the least recently used being converted again
+ * when needed, so that the cache doesn't grow with the size of the build. The descriptions are spread over
+ * {@value #STRIPES} independently locked segments, so that the modules generated concurrently don't contend on a
+ * single lock, the least recently used description of a segment being evicted once the segment is full.
+ * Instances are thread safe.
+ *
+ * @author Emmanuel Hugonnet (c) 2018 Red Hat, inc.
+ */
+public final class FragmentCache {
+
+    /**
+     * Key of the cache in the session data.
+     */
+    private static final String SESSION_KEY = FragmentCache.class.getName();
+
+    /**
+     * Default maximum number of converted descriptions.
+     */
+    static final int DEFAULT_MAX_TEXTS = 4096;
+
+    /**
+     * Number of segments of the converted descriptions, a power of two.
+     */
+    static final int STRIPES = 16;
+
+    private final List<RenderCache<String>> htmlTexts;
+
+    private final ConcurrentMap<Locale, LocalizedMessages> localizations =
+            new ConcurrentHashMap<Locale, LocalizedMessages>();
+
+    /**
+     * Creates a cache keeping at most {@value #DEFAULT_MAX_TEXTS} converted descriptions.
+     */
+    public FragmentCache() {
+        this(DEFAULT_MAX_TEXTS);
+    }
+
+    /**
+     * @param maxTexts the maximum number of converted descriptions kept, 0 to only share the localized messages.
+     */
+    FragmentCache(int maxTexts) {
+        this.htmlTexts = new ArrayList<RenderCache<String>>(STRIPES);
+        int maxSegmentTexts = (maxTexts + STRIPES - 1) / STRIPES;
+        for (int i = 0; i < STRIPES; i++) {
+            htmlTexts.add(new RenderCache<String>(maxSegmentTexts));
+        }
+    }
+
+    /**
+     * Returns the cache kept in the session data, creating it for the first generation of the build.
+     *
+     * @param data the data of the build session, not null
+     * @return the cache shared by the build.
+     */
+    static FragmentCache get(SessionData data) {
+        while (true) {
+            Object current = data.get(SESSION_KEY);
+            if (current instanceof FragmentCache) {
+                return (FragmentCache) current;
+            }
+            if (current != null) {
+                // another version of the plugin registered its own cache
+                return new FragmentCache();
+            }
+            FragmentCache cache = new FragmentCache();
+            if (data.set(SESSION_KEY, null, cache)) {
+                return cache;
+            }
+        }
+    }
+
+    /**
+     * @param text the javadoc description, not null
+     * @return the description converted to AsciiDoc.
+     */
+    String htmlToAsciidoc(String text) {
+        RenderCache<String> segment = getSegment(text);
+        String valid = segment.get(text);
+        if (valid == null) {
+            valid = HtmlToAsciidoc.convert(text);
+            segment.put(text, valid);
+        }
+        return valid;
+    }
+
+    /**
+     * @param text not null
+     * @return the segment of the converted description.
+     */
+    private RenderCache<String> getSegment(String text) {
+        int hash = text.hashCode();
+        // spreads the high bits, like HashMap, as the segment is selected by the low bits
+        return htmlTexts.get((hash ^ (hash >>> 16)) & (STRIPES - 1));
+    }
+
+    /**
+     * @param locale not null
+     * @param classLoader where the resource bundle is loaded from
+     * @return the messages of the locale, loaded once for the whole build.
+     */
+    LocalizedMessages getMessages(Locale locale, ClassLoader classLoader) {
+        LocalizedMessages messages = localizations.get(locale);
+        if (messages == null) {
+            messages = new LocalizedMessages(locale, classLoader);
+            LocalizedMessages previous = localizations.putIfAbsent(locale, messages);
+            if (previous != null) {
+                messages = previous;
+            }
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.tool.plugin;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures of a documentation generation: for each rendered document, the time spent rendering and writing it, the
+ * bytes written, the number of documented parameters and whether it was skipped because it was up to date.
+ * Documents may be recorded concurrently by the rendering threads.
+ *
+ * @author Emmanuel Hugonnet (c) 2018 Red Hat, inc.
+ */
+public final class GenerationMetrics {
+
+    private final String plugin;
+
+    private final List<GoalMetrics> goals = new ArrayList<GoalMetrics>();
+
+    private final long start = System.nanoTime();
+
+    private long totalNanos = -1;
+
+    /**
+     * @param plugin the coordinates of the documented plugin, not null
+     */
+    GenerationMetrics(String plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Records a rendered document.
+     *
+     * @param goal the goal path identifying the document, not null
+     * @param parameters the number of documented parameters
+     * @param renderNanos the time spent rendering the document
+     * @param writeNanos the time spent writing the document
+     * @param bytes the size of the document
+     * @param skipped <code>true</code> if the document already had the same content and wasn't rewritten
+     */
+    synchronized void record(String goal, int parameters, long renderNanos, long writeNanos, long bytes,
+            boolean skipped) {
+        goals.add(new GoalMetrics(goal, parameters, renderNanos, writeNanos, bytes, skipped));
+    }
+
+    /**
+     * Records a document which wasn't rendered because its goal didn't change since the previous generation.
+     *
+     * @param goal the goal path identifying the document, not null
+     * @param parameters the number of documented parameters
+     */
+    synchronized void recordUpToDate(String goal, int parameters) {
+        goals.add(new GoalMetrics(goal, parameters, 0, 0, 0, true));
+    }
+
+    /**
+     * Marks the end of the generation.
+     */
+    synchronized void stop() {
+        totalNanos = System.nanoTime() - start;
+    }
+
+    public String getPlugin() {
+        return plugin;
+    }
+
+    /**
+     * @return the duration of the whole generation in milliseconds.
+     */
+    public synchronized long getTotalMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(totalNanos < 0 ? System.nanoTime() - start : totalNanos);
+    }
+
+    /**
+     * @return the recorded documents, sorted by goal.
+     */
+    public synchronized List<GoalMetrics> getGoals() {
+        List<GoalMetrics> sorted = new ArrayList<GoalMetrics>(goals);
+        Collections.sort(sorted, new Comparator<GoalMetrics>() {
+            @Override
+            public int compare(GoalMetrics o1, GoalMetrics o2) {
+                return o1.getGoal().compareTo(o2.getGoal());
+            }
+        });
+        return sorted;
+    }
+
+    /**
+     * @return the total number of bytes written.
+     */
+    public synchronized long getBytesWritten() {
+        long bytes = 0;
+        for (GoalMetrics goal : goals) {
+            if (!goal.isSkipped()) {
+                bytes += goal.getBytes();
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * @return the number of documents which have been written.
+     */
+    public synchronized int getWrittenCount() {
+        int count = 0;
+        for (GoalMetrics goal : goals) {
+            if (!goal.isSkipped()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the metrics as a JSON document.
+     */
+    public String toJson() {
+        List<GoalMetrics> sorted = getGoals();
+        StringBuilder json = new StringBuilder(128 + sorted.size() * 160);
+        json.append("{\n  \"plugin\": ");
+        JsonWriter.appendString(plugin, json);
+        json.append(",\n  \"totalMillis\": ").append(getTotalMillis());
+        json.append(",\n  \"documentsWritten\": ").append(getWrittenCount());
+        json.append(",\n  \"bytesWritten\": ").append(getBytesWritten());
+        json.append(",\n  \"goals\": [");
+        for (int i = 0; i < sorted.size(); i++) {
+            GoalMetrics goal = sorted.get(i);
+            json.append(i == 0 ? "\n" : ",\n");
+            json.append("    {\"goal\": ");
+            JsonWriter.appendString(goal.getGoal(), json);
+            json.append(", \"parameters\": ").append(goal.getParameters());
+            json.append(", \"renderMicros\": ").append(TimeUnit.NANOSECONDS.toMicros(goal.getRenderNanos()));
+            json.append(", \"writeMicros\": ").append(TimeUnit.NANOSECONDS.toMicros(goal.getWriteNanos()));
+            json.append(", \"bytes\": ").append(goal.getBytes());
+            json.append(", \"skipped\": ").append(goal.isSkipped());
+            json.append('}');
+        }
+        json.append(sorted.isEmpty() ? "]\n}\n" : "\n  ]\n}\n");
+        return json.toString();
+    }
+
+    /**
+     * The measures of a single document.
+     */
+    public static final class GoalMetrics {
+
+        private final String goal;
+
+        private final int parameters;
+
+        private final long renderNanos;
+
+        private final long writeNanos;
+
+        private final long bytes;
+
+        private final boolean skipped;
+
+        GoalMetrics(String goal, int parameters, long renderNanos, long writeNanos, long bytes, boolean skipped) {
+            this.goal = goal;
+            this.parameters = parameters;
+            this.renderNanos = renderNanos;
+            this.writeNanos = writeNanos;
+            this.bytes = bytes;
+            this.skipped = skipped;
+        }
+
+        public String getGoal() {
+            return goal;
+        }
+
+        public int getParameters() {
+            return parameters;
+        }
+
+        public long getRenderNanos() {
+            return renderNanos;
+        }
+
+        public long getWriteNanos() {
+            return writeNanos;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public boolean isSkipped() {
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.tool.plugin;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+import org.codehaus.plexus.util.IOUtil;
+
+/**
+ * Fingerprints of the goals documented by the previous generation, keyed by goal name prefixed by the locale
+ * directory when several locales are generated. The reproducible generations also keep the digest of each document,
+ * so that the content manifest still covers the documents which are up to date. The state also records whether the
+ * goals were documented in a single aggregated document, so that the documents of the other mode can be deleted.
+ *
+ * @author Emmanuel Hugonnet (c) 2018 Red Hat, inc.
+ */
+final class GenerationState {
+
+    /**
+     * Prefix of the digest of a document, a goal name can't contain a colon.
+     */
+    private static final String DIGEST_PREFIX = "sha256:";
+
+    /**
+     * Key of the output mode, a goal name can't contain a colon.
+     */
+    private static final String AGGREGATED = "mode:aggregated";
+
+    private final Properties fingerprints = new Properties();
+
+    /**
+     * @param stateFile not null
+     * @return the state stored in <code>stateFile</code>, empty if the file doesn't exist.
+     * @throws IOException if any
+     */
+    static GenerationState load(File stateFile) throws IOException {
+        GenerationState state = new GenerationState();
+        if (stateFile.isFile()) {
+            InputStream in = null;
+            try {
+                in = new FileInputStream(stateFile);
+                state.fingerprints.load(in);
+            } finally {
+                IOUtil.close(in);
+            }
+        }
+        return state;
+    }
+
+    /**
+     * @param stateFile not null
+     * @throws IOException if any
+     */
+    void store(File stateFile) throws IOException {
+        File parent = stateFile.getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Could not create directory " + parent);
+        }
+        OutputStream out = null;
+        try {
+            out = new FileOutputStream(stateFile);
+            fingerprints.store(out, "AsciiDoc plugin descriptor generation state");
+        } finally {
+            IOUtil.close(out);
+        }
+    }
+
+    /**
+     * @param goal not null
+     * @return the fingerprint of the goal, null if the goal wasn't documented.
+     */
+    String getFingerprint(String goal) {
+        return fingerprints.getProperty(goal);
+    }
+
+    void putFingerprint(String goal, String fingerprint) {
+        fingerprints.setProperty(goal, fingerprint);
+    }
+
+    /**
+     * @param path the path of the document in the output sink, not null
+     * @return the hexadecimal digest of the document, null if it wasn't recorded.
+     */
+    String getDigest(String path) {
+        return fingerprints.getProperty(DIGEST_PREFIX + path);
+    }
+
+    void putDigest(String path, String digest) {
+        fingerprints.setProperty(DIGEST_PREFIX + path, digest);
+    }
+
+    /**
+     * @return <code>true</code> if the goals were documented in a single aggregated document, null if the state
+     * doesn't record it.
+     */
+    Boolean isAggregated() {
+        String aggregated = fingerprints.getProperty(AGGREGATED);
+        return aggregated == null ? null : Boolean.valueOf(aggregated);
+    }
+
+    void setAggregated(boolean aggregated) {
+        fingerprints.setProperty(AGGREGATED, Boolean.toString(aggregated));
+    }
+
+    Set<String> getGoals() {
+        Set<String> goals = new HashSet<String>();
+        for (String name : fingerprints.stringPropertyNames()) {
+            if (!name.startsWith(DIGEST_PREFIX) && !name.equals(AGGREGATED)) {
+                goals.add(name);
+            }
+        }
+        return goals;
+    }
+}
@@ -0,0 +1,795 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.tool.plugin;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Single pass conversion of javadoc HTML to AsciiDoc, written directly to the output. The usual inline elements,
+ * paragraphs, lists, preformatted blocks, links and javadoc inline tags are converted, the other HTML elements are
+ * dropped and their text kept. A tag which doesn't name an HTML element, like the type argument of
+ * <code>List&lt;String&gt;</code>, is kept as text. Whitespace is collapsed as a browser would, so that a description
+ * never breaks the table cell or the paragraph it is rendered in. Instances convert a single text.
+ *
+ * @author Emmanuel Hugonnet (c) 2018 Red Hat, inc.
+ */
+final class HtmlToAsciidoc {
+
+    private static final int NONE = 0;
+    private static final int SPACE = 1;
+    private static final int LINE_BREAK = 2;
+    private static final int NEWLINE = 3;
+    private static final int PARAGRAPH = 4;
+
+    /**
+     * Line separator of the converted text, the same as the one of the rendered template.
+     */
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    /**
+     * Closes a trailing list or listing block, so that a following hard line break or list isn't part of it.
+     */
+    private static final String BLOCK_END = LINE_SEPARATOR + LINE_SEPARATOR + "{empty}";
+
+    /**
+     * The names of the HTML elements, the other tags being kept as text.
+     */
+    private static final Set<String> ELEMENTS = new HashSet<String>(Arrays.asList("a", "abbr", "acronym",
+            "address", "area", "article", "aside", "b", "bdi", "bdo", "big", "blockquote", "body", "br", "caption",
+            "center", "cite", "code", "col", "colgroup", "dd", "del", "details", "dfn", "div", "dl", "dt", "em",
+            "figcaption", "figure", "font", "footer", "h1", "h2", "h3", "h4", "h5", "h6", "head", "header", "hr",
+            "html", "i", "img", "ins", "kbd", "li", "main", "mark", "nav", "nobr", "ol", "p", "pre", "q", "s",
+            "samp", "section", "small", "span", "strike", "strong", "sub", "summary", "sup", "table", "tbody", "td",
+            "tfoot", "th", "thead", "time", "tr", "tt", "u", "ul", "var", "wbr"));
+
+    private static final Map<String, Character> ENTITIES = new HashMap<String, Character>();
+
+    static {
+        ENTITIES.put("lt", '<');
+        ENTITIES.put("gt", '>');
+        ENTITIES.put("amp", '&');
+        ENTITIES.put("quot", '"');
+        ENTITIES.put("apos", '\'');
+        ENTITIES.put("nbsp", '\u00a0');
+        ENTITIES.put("copy", '\u00a9');
+        ENTITIES.put("reg", '\u00ae');
+        ENTITIES.put("ndash", '\u2013');
+        ENTITIES.put("mdash", '\u2014');
+        ENTITIES.put("hellip", '\u2026');
+        ENTITIES.put("lsquo", '\u2018');
+        ENTITIES.put("rsquo", '\u2019');
+        ENTITIES.put("ldquo", '\u201c');
+        ENTITIES.put("rdquo", '\u201d');
+        ENTITIES.put("laquo", '\u00ab');
+        ENTITIES.put("raquo", '\u00bb');
+    }
+
+    private final CharSequence html;
+
+    private final Appendable out;
+
+    private int index;
+
+    /**
+     * Whether some text has been written, breaks before the first text are dropped.
+     */
+    private boolean written;
+
+    /**
+     * The strongest break requested since the last text.
+     */
+    private int pendingBreak = NONE;
+
+    /**
+     * The list item marker to write before the next text.
+     */
+    private String pendingItem;
+
+    /**
+     * Inline markups opened but not written yet, they are dropped if the element has no text.
+     */
+    private final StringBuilder pendingOpen = new StringBuilder();
+
+    /**
+     * The elements of the opened inline markups, and their closing markup.
+     */
+    private final List<String[]> inlines = new ArrayList<String[]>();
+
+    /**
+     * The markers of the opened lists.
+     */
+    private final StringBuilder lists = new StringBuilder();
+
+    private HtmlToAsciidoc(CharSequence html, Appendable out) {
+        this.html = html;
+        this.out = out;
+    }
+
+    /**
+     * @param html the javadoc description, not null
+     * @return the description converted to AsciiDoc.
+     */
+    static String convert(CharSequence html) {
+        StringBuilder buffer = new StringBuilder(html.length() + 16);
+        try {
+            convert(html, buffer);
+        } catch (IOException e) {
+            // can't happen with a StringBuilder
+            throw new IllegalStateException(e);
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * Closes a converted description ending with a list or a listing block, when the template continues it with
+     * a hard line break or a list, like the details of a parameter. A description which isn't continued, like the
+     * description of a goal followed by a section title, is rendered as is.
+     *
+     * @param asciidoc a converted description, null if there is no description
+     * @return the description followed by an empty paragraph if it ends with a block, the description otherwise.
+     */
+    static String closeBlock(String asciidoc) {
+        return asciidoc != null && endsWithBlock(asciidoc) ? asciidoc + BLOCK_END : asciidoc;
+    }
+
+    /**
+     * @param asciidoc a converted description, not null
+     * @return <code>true</code> if the description ends with a listing block, or if its last paragraph is a list.
+     */
+    private static boolean endsWithBlock(String asciidoc) {
+        if (asciidoc.endsWith("----")) {
+            return asciidoc.length() == 4 || asciidoc.charAt(asciidoc.length() - 5) == '\n';
+        }
+        int start = asciidoc.lastIndexOf(LINE_SEPARATOR + LINE_SEPARATOR);
+        start = start < 0 ? 0 : start + 2 * LINE_SEPARATOR.length();
+        int markerEnd = start;
+        while (markerEnd < asciidoc.length()
+                && (asciidoc.charAt(markerEnd) == '*' || asciidoc.charAt(markerEnd) == '.')) {
+            markerEnd++;
+        }
+        return markerEnd > start && markerEnd < asciidoc.length() && asciidoc.charAt(markerEnd) == ' ';
+    }
+
+    /**
+     * @param html the javadoc description, not null
+     * @param out where the description converted to AsciiDoc is appended.
+     * @throws IOException if any
+     */
+    static void convert(CharSequence html, Appendable out) throws IOException {
+        new HtmlToAsciidoc(html, out).convert();
+    }
+
+    private void convert() throws IOException {
+        while (index < html.length()) {
+            char c = html.charAt(index);
+            if (c == '<' && parseMarkup()) {
+                continue;
+            }
+            if (c == '{' && parseInlineTag()) {
+                continue;
+            }
+            if (c == '&') {
+                character(parseEntity());
+            } else {
+                index++;
+                character(c);
+            }
+        }
+        while (!inlines.isEmpty()) {
+            closeInline(inlines.size() - 1);
+        }
+    }
+
+    /**
+     * Parses a comment or a tag at the current index.
+     *
+     * @return <code>false</code> if the <code>&lt;</code> character doesn't start markup.
+     * @throws IOException if any
+     */
+    private boolean parseMarkup() throws IOException {
+        if (regionMatches(index, "<!--")) {
+            int end = indexOf("-->", index + 4);
+            index = end < 0 ? html.length() : end + 3;
+            return true;
+        }
+        int start = index + 1;
+        boolean closing = start < html.length() && html.charAt(start) == '/';
+        if (closing) {
+            start++;
+        }
+        int nameEnd = start;
+        while (nameEnd < html.length() && Character.isLetterOrDigit(html.charAt(nameEnd))) {
+            nameEnd++;
+        }
+        int end = indexOf(">", nameEnd);
+        if (nameEnd == start || end < 0) {
+            return false;
+        }
+        String name = html.subSequence(start, nameEnd).toString().toLowerCase(Locale.ENGLISH);
+        if (!ELEMENTS.contains(name)) {
+            return false;
+        }
+        String attributes = html.subSequence(nameEnd, end).toString();
+        index = end + 1;
+        if (closing) {
+            endElement(name);
+        } else {
+            startElement(name, attributes);
+        }
+        return true;
+    }
+
+    private void startElement(String name, String attributes) throws IOException {
+        switch (name) {
+            case "b":
+            case "strong":
+                openInline(name, "*", "*");
+                break;
+            case "i":
+            case "em":
+            case "cite":
+                openInline(name, "_", "_");
+                break;
+            case "code":
+            case "tt":
+            case "var":
+            case "samp":
+            case "kbd":
+                openInline(name, "`", "`");
+                break;
+            case "a":
+                String href = getAttribute(attributes, "href");
+                if (href != null && !href.isEmpty()) {
+                    openInline(name, "link:" + href.replace(" ", "%20") + "[", "]");
+                }
+                break;
+            case "br":
+                requestBreak(LINE_BREAK);
+                break;
+            case "p":
+                requestBreak(lists.length() > 0 ? LINE_BREAK : PARAGRAPH);
+                break;
+            case "h1":
+            case "h2":
+            case "h3":
+            case "h4":
+            case "h5":
+            case "h6":
+                requestBreak(PARAGRAPH);
+                openInline(name, "*", "*");
+                break;
+            case "dt":
+                requestBreak(PARAGRAPH);
+                openInline(name, "*", "*");
+                break;
+            case "ul":
+            case "ol":
+                requestBreak(lists.length() == 0 ? PARAGRAPH : NEWLINE);
+                lists.append("ul".equals(name) ? '*' : '.');
+                break;
+            case "li":
+                requestBreak(NEWLINE);
+                pendingItem = getItemMarker();
+                break;
+            case "pre":
+                parsePreformatted();
+                break;
+            case "div":
+            case "blockquote":
+            case "dl":
+            case "dd":
+            case "table":
+            case "tr":
+            case "hr":
+                requestBreak(PARAGRAPH);
+                break;
+            case "td":
+            case "th":
+                requestBreak(SPACE);
+                break;
+            default:
+                // the other elements are dropped, their text is kept
+        }
+    }
+
+    private void endElement(String name) throws IOException {
+        switch (name) {
+            case "b":
+            case "strong":
+            case "i":
+            case "em":
+            case "cite":
+            case "code":
+            case "tt":
+            case "var":
+            case "samp":
+            case "kbd":
+            case "a":
+                endInline(name);
+                break;
+            case "h1":
+            case "h2":
+            case "h3":
+            case "h4":
+            case "h5":
+            case "h6":
+                endInline(name);
+                requestBreak(PARAGRAPH);
+                break;
+            case "dt":
+                endInline(name);
+                requestBreak(LINE_BREAK);
+                break;
+            case "ul":
+            case "ol":
+                if (lists.length() > 0) {
+                    lists.setLength(lists.length() - 1);
+                }
+                requestBreak(lists.length() == 0 ? PARAGRAPH : NEWLINE);
+                break;
+            case "p":
+                requestBreak(lists.length() > 0 ? LINE_BREAK : PARAGRAPH);
+                break;
+            case "div":
+            case "blockquote":
+            case "dl":
+            case "dd":
+            case "table":
+            case "tr":
+                requestBreak(PARAGRAPH);
+                break;
+            default:
+                // the other elements are dropped, their text is kept
+        }
+    }
+
+    /**
+     * Converts the content of a <code>&lt;pre&gt;</code> element to a listing block, keeping its whitespace.
+     *
+     * @throws IOException if any
+     */
+    private void parsePreformatted() throws IOException {
+        StringBuilder content = new StringBuilder();
+        while (index < html.length()) {
+            char c = html.charAt(index);
+            if (c == '<' && regionMatchesIgnoreCase(index, "</pre")) {
+                int end = indexOf(">", index);
+                index = end < 0 ? html.length() : end + 1;
+                break;
+            }
+            if (c == '<' && regionMatches(index, "<!--")) {
+                int end = indexOf("-->", index + 4);
+                index = end < 0 ? html.length() : end + 3;
+            } else if (c == '<' && isElement(index)) {
+                // markup inside the block is dropped
+                int end = indexOf(">", index);
+                index = end < 0 ? html.length() : end + 1;
+            } else if (c == '{' && regionMatches(index, "{@")) {
+                int end = findInlineTagEnd(index + 2);
+                if (end < 0) {
+                    content.append(c);
+                    index++;
+                } else {
+                    int contentStart = skipInlineTagName(index + 2, end);
+                    content.append(html, contentStart, end);
+                    index = end + 1;
+                }
+            } else if (c == '&') {
+                content.append(parseEntity());
+            } else {
+                content.append(c);
+                index++;
+            }
+        }
+        int start = 0;
+        while (start < content.length() && (content.charAt(start) == '\n' || content.charAt(start) == '\r')) {
+            start++;
+        }
+        int end = content.length();
+        while (end > start && Character.isWhitespace(content.charAt(end - 1))) {
+            end--;
+        }
+        if (end == start) {
+            return;
+        }
+        requestBreak(PARAGRAPH);
+        pendingItem = null;
+        flush();
+        if (content.indexOf("|") >= 0) {
+            // a | would end the table cell, it is written as an attribute which is only substituted on request
+            out.append("[subs=\"+attributes\"]").append(LINE_SEPARATOR).append("----").append(LINE_SEPARATOR);
+            for (int i = start; i < end; i++) {
+                char c = content.charAt(i);
+                if (c == '|') {
+                    out.append("{vbar}");
+                } else if (c == '{') {
+                    out.append("{lbrace}");
+                } else {
+                    out.append(c);
+                }
+            }
+        } else {
+            out.append("----").append(LINE_SEPARATOR).append(content, start, end);
+        }
+        out.append(LINE_SEPARATOR).append("----");
+        requestBreak(PARAGRAPH);
+    }
+
+    /**
+     * @param start the index of a <code>&lt;</code> character
+     * @return <code>true</code> if the character starts an opening or a closing tag of an HTML element.
+     */
+    private boolean isElement(int start) {
+        int nameStart = start + 1;
+        if (nameStart < html.length() && html.charAt(nameStart) == '/') {
+            nameStart++;
+        }
+        int nameEnd = nameStart;
+        while (nameEnd < html.length() && Character.isLetterOrDigit(html.charAt(nameEnd))) {
+            nameEnd++;
+        }
+        return nameEnd > nameStart
+                && ELEMENTS.contains(html.subSequence(nameStart, nameEnd).toString().toLowerCase(Locale.ENGLISH));
+    }
+
+    /**
+     * Parses a javadoc inline tag, like <code>{&#64;code ...}</code>, at the current index.
+     *
+     * @return <code>false</code> if the <code>{</code> character doesn't start an inline tag.
+     * @throws IOException if any
+     */
+    private boolean parseInlineTag() throws IOException {
+        if (!regionMatches(index, "{@")) {
+            return false;
+        }
+        int end = findInlineTagEnd(index + 2);
+        if (end < 0) {
+            return false;
+        }
+        int contentStart = skipInlineTagName(index + 2, end);
+        String name = html.subSequence(index + 2, contentStart).toString().trim();
+        String content = html.subSequence(contentStart, end).toString().trim();
+        index = end + 1;
+        switch (name) {
+            case "code":
+            case "value":
+                if (!content.isEmpty()) {
+                    flush();
+                    out.append('`');
+                    literal(content);
+                    out.append('`');
+                }
+                break;
+            case "link":
+            case "linkplain":
+                String label = getLinkLabel(content);
+                if (!label.isEmpty()) {
+                    flush();
+                    boolean code = "link".equals(name);
+                    if (code) {
+                        out.append('`');
+                    }
+                    literal(label);
+                    if (code) {
+                        out.append('`');
+                    }
+                }
+                break;
+            case "inheritDoc":
+            case "docRoot":
+                break;
+            case "index":
+                literal(getLinkReference(content));
+                break;
+            default:
+                literal(content);
+        }
+        return true;
+    }
+
+    /**
+     * @param content the content of a link inline tag, not null
+     * @return the label of the link, or its reference as a java expression if it has no label.
+     */
+    private static String getLinkLabel(String content) {
+        String reference = getLinkReference(content);
+        String label = content.substring(reference.length()).trim();
+        if (!label.isEmpty()) {
+            return label;
+        }
+        if (reference.startsWith("#")) {
+            reference = reference.substring(1);
+        }
+        return reference.replace('#', '.');
+    }
+
+    /**
+     * @param content the content of an inline tag, not null
+     * @return the first word of the content, whitespace in parentheses being part of the word.
+     */
+    private static String getLinkReference(String content) {
+        int depth = 0;
+        for (int i = 0; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (depth <= 0 && Character.isWhitespace(c)) {
+                return content.substring(0, i);
+            }
+        }
+        return content;
+    }
+
+    /**
+     * @param start index following the opening <code>{&#64;</code>
+     * @return the index of the closing brace, balancing the nested braces, -1 if the tag isn't closed.
+     */
+    private int findInlineTagEnd(int start) {
+        int depth = 0;
+        for (int i = start; i < html.length(); i++) {
+            char c = html.charAt(i);
+            if (c == '{') {
+                depth++;
+            } else if (c == '}') {
+                if (depth == 0) {
+                    return i;
+                }
+                depth--;
+            }
+        }
+        return -1;
+    }
+
+    private int skipInlineTagName(int start, int end) {
+        int i = start;
+        while (i < end && !Character.isWhitespace(html.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Parses an entity at the current index.
+     *
+     * @return the character of the entity, <code>&amp;</code> if it isn't a known entity.
+     */
+    private char parseEntity() {
+        int end = indexOf(";", index + 1);
+        if (end > index + 1 && end - index <= 10) {
+            String name = html.subSequence(index + 1, end).toString();
+            Character entity = null;
+            if (name.charAt(0) == '#') {
+                try {
+                    int code = name.length() > 1 && (name.charAt(1) == 'x' || name.charAt(1) == 'X')
+                            ? Integer.parseInt(name.substring(2), 16) : Integer.parseInt(name.substring(1));
+                    if (code > 0 && code <= Character.MAX_VALUE) {
+                        entity = (char) code;
+                    }
+                } catch (NumberFormatException e) {
+                    // not an entity
+                }
+            } else {
+                entity = ENTITIES.get(name);
+            }
+            if (entity != null) {
+                index = end + 1;
+                return entity;
+            }
+        }
+        index++;
+        return '&';
+    }
+
+    private void openInline(String name, String open, String close) {
+        pendingOpen.append(open);
+        inlines.add(new String[] {name, open, close});
+    }
+
+    private void endInline(String name) throws IOException {
+        for (int i = inlines.size() - 1; i >= 0; i--) {
+            if (inlines.get(i)[0].equals(name)) {
+                while (inlines.size() > i) {
+                    closeInline(inlines.size() - 1);
+                }
+                return;
+            }
+        }
+    }
+
+    private void closeInline(int position) throws IOException {
+        String[] inline = inlines.remove(position);
+        String open = inline[1];
+        int length = pendingOpen.length();
+        if (length >= open.length() && pendingOpen.lastIndexOf(open) == length - open.length()) {
+            // no text in the element
+            pendingOpen.setLength(length - open.length());
+        } else {
+            out.append(inline[2]);
+        }
+    }
+
+    private boolean isInLink() {
+        for (String[] inline : inlines) {
+            if ("a".equals(inline[0])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String getItemMarker() {
+        if (lists.length() == 0) {
+            return "* ";
+        }
+        StringBuilder marker = new StringBuilder(lists.length() + 1);
+        char type = lists.charAt(lists.length() - 1);
+        for (int i = 0; i < lists.length(); i++) {
+            marker.append(type);
+        }
+        return marker.append(' ').toString();
+    }
+
+    private void requestBreak(int level) {
+        pendingBreak = Math.max(pendingBreak, level);
+    }
+
+    /**
+     * Writes the requested break, list item marker and inline markups before some text.
+     *
+     * @throws IOException if any
+     */
+    private void flush() throws IOException {
+        if (written) {
+            switch (pendingBreak) {
+                case SPACE:
+                    out.append(' ');
+                    break;
+                case LINE_BREAK:
+                    out.append(" +").append(LINE_SEPARATOR);
+                    break;
+                case NEWLINE:
+                    out.append(LINE_SEPARATOR);
+                    break;
+                case PARAGRAPH:
+                    out.append(LINE_SEPARATOR).append(LINE_SEPARATOR);
+                    break;
+                default:
+            }
+        }
+        pendingBreak = NONE;
+        if (pendingItem != null) {
+            out.append(pendingItem);
+            pendingItem = null;
+        }
+        if (pendingOpen.length() > 0) {
+            out.append(pendingOpen);
+            pendingOpen.setLength(0);
+        }
+        written = true;
+    }
+
+    /**
+     * Writes a character of text, whitespace being collapsed.
+     *
+     * @param c the character
+     * @throws IOException if any
+     */
+    private void character(char c) throws IOException {
+        if (Character.isWhitespace(c)) {
+            requestBreak(SPACE);
+        } else {
+            flush();
+            append(c);
+        }
+    }
+
+    /**
+     * Writes a text verbatim, its whitespace being collapsed.
+     *
+     * @param text not null
+     * @throws IOException if any
+     */
+    private void literal(String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            character(text.charAt(i));
+        }
+    }
+
+    private void append(char c) throws IOException {
+        if (c == '|') {
+            // would end the table cell
+            out.append("{vbar}");
+        } else if (c == ']' && isInLink()) {
+            out.append("\\]");
+        } else {
+            out.append(c);
+        }
+    }
+
+    private static String getAttribute(String attributes, String name) {
+        String lower = attributes.toLowerCase(Locale.ENGLISH);
+        int start = 0;
+        while ((start = lower.indexOf(name, start)) >= 0) {
+            int i = start + name.length();
+            boolean atName = start == 0 || Character.isWhitespace(lower.charAt(start - 1));
+            while (i < lower.length() && Character.isWhitespace(lower.charAt(i))) {
+                i++;
+            }
+            if (atName && i < lower.length() && lower.charAt(i) == '=') {
+                i++;
+                while (i < lower.length() && Character.isWhitespace(lower.charAt(i))) {
+                    i++;
+                }
+                if (i < lower.length() && (lower.charAt(i) == '"' || lower.charAt(i) == '\'')) {
+                    int end = lower.indexOf(lower.charAt(i), i + 1);
+                    return attributes.substring(i + 1, end < 0 ? attributes.length() : end);
+                }
+                int end = i;
+                while (end < lower.length() && !Character.isWhitespace(lower.charAt(end))
+                        && lower.charAt(end) != '/') {
+                    end++;
+                }
+                return attributes.substring(i, end);
+            }
+            start = i;
+        }
+        return null;
+    }
+
+    private int indexOf(String expected, int from) {
+        for (int i = from; i <= html.length() - expected.length(); i++) {
+            if (regionMatches(i, expected)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean regionMatches(int offset, String expected) {
+        if (offset + expected.length() > html.length()) {
+            return false;
+        }
+        for (int i = 0; i < expected.length(); i++) {
+            if (html.charAt(offset + i) != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean regionMatchesIgnoreCase(int offset, String expected) {
+        if (offset + expected.length() > html.length()) {
+            return false;
+        }
+        for (int i = 0; i < expected.length(); i++) {
+            if (Character.toLowerCase(html.charAt(offset + i)) != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,345 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.tool.plugin;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Properties;
+import org.codehaus.plexus.util.IOUtil;
+
+/**
+ * Content hashes of the inputs of a generation, and the size and modification time of its classpath and of its
+ * outputs, used to skip the descriptor extraction when nothing changed since the previous build. The hash of an
+ * input is only recomputed when its size or modification time changed, so that the cost of the check is bounded by
+ * the changed files, and touching a file without changing its content doesn't trigger a generation. The classpath
+ * is only compared by size and modification time, as reading every dependency would cost more than the
+ * generation.
+ *
+ * @author Emmanuel Hugonnet (c) 2018 Red Hat, inc.
+ */
+final class InputState {
+
+    private static final String CONFIGURATION = "configuration";
+
+    private static final String INPUT = "input:";
+
+    private static final String CLASSPATH = "classpath:";
+
+    private static final String OUTPUT = "output:";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Properties entries = new Properties();
+
+    /**
+     * The state of the previous build, whose hashes are reused for the unchanged files.
+     */
+    private final InputState previous;
+
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    private final MessageDigest digest;
+
+    private InputState(InputState previous) {
+        this.previous = previous;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param stateFile not null
+     * @return the state stored in <code>stateFile</code>, empty if the file doesn't exist.
+     * @throws IOException if any
+     */
+    static InputState load(File stateFile) throws IOException {
+        InputState state = new InputState(null);
+        if (stateFile.isFile()) {
+            InputStream in = null;
+            try {
+                in = new FileInputStream(stateFile);
+                state.entries.load(in);
+            } finally {
+                IOUtil.close(in);
+            }
+        }
+        return state;
+    }
+
+    /**
+     * @return an empty state reusing the hashes of this state.
+     */
+    InputState next() {
+        return new InputState(this);
+    }
+
+    /**
+     * @param stateFile not null
+     * @throws IOException if any
+     */
+    void store(File stateFile) throws IOException {
+        File parent = stateFile.getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Could not create directory " + parent);
+        }
+        OutputStream out = null;
+        try {
+            out = new FileOutputStream(stateFile);
+            entries.store(out, "AsciiDoc plugin descriptor inputs");
+        } finally {
+            IOUtil.close(out);
+        }
+    }
+
+    /**
+     * @param configuration everything from the mojo configuration which changes the outputs, not null
+     */
+    void putConfiguration(String configuration) {
+        entries.setProperty(CONFIGURATION, hash(configuration.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Adds an input file, ignored if it doesn't exist.
+     *
+     * @param file not null
+     * @throws IOException if any
+     */
+    void addInput(Path file) throws IOException {
+        if (Files.isRegularFile(file)) {
+            addInput(file, Files.readAttributes(file, BasicFileAttributes.class));
+        }
+    }
+
+    /**
+     * Adds the files of a directory tree whose name ends with <code>suffix</code>, ignored if the directory doesn't
+     * exist.
+     *
+     * @param directory not null
+     * @param suffix not null
+     * @throws IOException if any
+     */
+    void addInputs(Path directory, final String suffix) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if (attrs.isRegularFile() && file.getFileName().toString().endsWith(suffix)) {
+                    addInput(file, attrs);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void addInput(Path file, BasicFileAttributes attrs) throws IOException {
+        String key = INPUT + file.toAbsolutePath();
+        String stamp = attrs.size() + "," + attrs.lastModifiedTime().toMillis() + ",";
+        String known = previous == null ? null : previous.entries.getProperty(key);
+        if (known != null && known.startsWith(stamp)) {
+            entries.setProperty(key, known);
+        } else {
+            entries.setProperty(key, stamp + hash(file));
+        }
+    }
+
+    /**
+     * Adds an element of the classpath, compared by size and modification time, ignored if it doesn't exist.
+     *
+     * @param file not null
+     * @throws IOException if any
+     */
+    void addClasspathInput(Path file) throws IOException {
+        if (Files.isRegularFile(file)) {
+            putStamp(CLASSPATH, file, Files.readAttributes(file, BasicFileAttributes.class));
+        }
+    }
+
+    /**
+     * Adds the files of a classpath directory whose name ends with <code>suffix</code>, compared by size and
+     * modification time, ignored if the directory doesn't exist.
+     *
+     * @param directory not null
+     * @param suffix not null
+     * @throws IOException if any
+     */
+    void addClasspathInputs(Path directory, final String suffix) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile() && file.getFileName().toString().endsWith(suffix)) {
+                    putStamp(CLASSPATH, file, attrs);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void putStamp(String prefix, Path file, BasicFileAttributes attrs) {
+        entries.setProperty(prefix + file.toAbsolutePath(), attrs.size() + "," + attrs.lastModifiedTime().toMillis());
+    }
+
+    /**
+     * Records the generated files of a directory tree whose name ends with one of the <code>suffixes</code>.
+     *
+     * @param directory not null
+     * @param suffixes not null
+     * @throws IOException if any
+     */
+    void addOutputs(Path directory, final String... suffixes) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                for (String suffix : suffixes) {
+                    if (attrs.isRegularFile() && file.getFileName().toString().endsWith(suffix)) {
+                        putStamp(OUTPUT, file, attrs);
+                    }
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Records a generated file, ignored if it doesn't exist.
+     *
+     * @param file not null
+     * @throws IOException if any
+     */
+    void addOutput(Path file) throws IOException {
+        if (Files.isRegularFile(file)) {
+            putStamp(OUTPUT, file, Files.readAttributes(file, BasicFileAttributes.class));
+        }
+    }
+
+    /**
+     * @return <code>true</code> if the configuration, the content of the inputs and the classpath are the same as in
+     * the previous state, and the outputs of the previous generation haven't been modified.
+     * @throws IOException if any
+     */
+    boolean isUpToDate() throws IOException {
+        if (previous == null || previous.entries.getProperty(CONFIGURATION) == null
+                || !previous.entries.getProperty(CONFIGURATION).equals(entries.getProperty(CONFIGURATION))) {
+            return false;
+        }
+        int inputs = 0;
+        boolean outputs = false;
+        for (String key : previous.entries.stringPropertyNames()) {
+            String value = previous.entries.getProperty(key);
+            if (key.startsWith(INPUT)) {
+                inputs++;
+                String current = entries.getProperty(key);
+                if (current == null || !getHash(current).equals(getHash(value))) {
+                    return false;
+                }
+            } else if (key.startsWith(CLASSPATH)) {
+                inputs++;
+                if (!value.equals(entries.getProperty(key))) {
+                    return false;
+                }
+            } else if (key.startsWith(OUTPUT)) {
+                outputs = true;
+                Path file = new File(key.substring(OUTPUT.length())).toPath();
+                if (!Files.isRegularFile(file)) {
+                    return false;
+                }
+                BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+                if (!value.equals(attrs.size() + "," + attrs.lastModifiedTime().toMillis())) {
+                    return false;
+                }
+            }
+        }
+        int currentInputs = 0;
+        for (String key : entries.stringPropertyNames()) {
+            if (key.startsWith(INPUT) || key.startsWith(CLASSPATH)) {
+                currentInputs++;
+            }
+        }
+        return outputs && inputs == currentInputs;
+    }
+
+    /**
+     * Carries the outputs of the previous generation over, when it is skipped.
+     */
+    void keepOutputs() {
+        if (previous != null) {
+            for (String key : previous.entries.stringPropertyNames()) {
+                if (key.startsWith(OUTPUT)) {
+                    entries.setProperty(key, previous.entries.getProperty(key));
+                }
+            }
+        }
+    }
+
+    private static String getHash(String value) {
+        return value.substring(value.lastIndexOf(',') + 1);
+    }
+
+    private String hash(Path file) throws IOException {
+        digest.reset();
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            buffer.clear();
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        } finally {
+            IOUtil.close(channel);
+        }
+        return toHex(digest.digest());
+    }
+
+    private String hash(byte[] content) {
+        digest.reset();
+        return toHex(digest.digest(content));
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
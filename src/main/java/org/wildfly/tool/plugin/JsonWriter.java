@@ -0,0 +1,167 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.tool.plugin;
+
+/**
+ * Writes compact JSON to a buffer, without any dependency. The writer only separates the values, it is up to the
+ * caller to write a well-formed document.
+ *
+ * @author Emmanuel Hugonnet (c) 2018 Red Hat, inc.
+ */
+final class JsonWriter {
+
+    private final StringBuilder out;
+
+    /**
+     * Whether the next value is the first one of its object or array.
+     */
+    private boolean first = true;
+
+    /**
+     * Whether a member name has just been written, its value doesn't need to be separated.
+     */
+    private boolean afterName;
+
+    /**
+     * @param out not null
+     */
+    JsonWriter(StringBuilder out) {
+        this.out = out;
+    }
+
+    JsonWriter beginObject() {
+        separate();
+        out.append('{');
+        first = true;
+        return this;
+    }
+
+    JsonWriter endObject() {
+        out.append('}');
+        first = false;
+        return this;
+    }
+
+    JsonWriter beginArray() {
+        separate();
+        out.append('[');
+        first = true;
+        return this;
+    }
+
+    JsonWriter endArray() {
+        out.append(']');
+        first = false;
+        return this;
+    }
+
+    /**
+     * @param name the name of the next member of the current object, not null
+     * @return this writer.
+     */
+    JsonWriter name(String name) {
+        separate();
+        appendString(name, out);
+        out.append(':');
+        afterName = true;
+        return this;
+    }
+
+    /**
+     * @param value the value, may be null
+     * @return this writer.
+     */
+    JsonWriter value(String value) {
+        separate();
+        if (value == null) {
+            out.append("null");
+        } else {
+            appendString(value, out);
+        }
+        return this;
+    }
+
+    JsonWriter value(long value) {
+        separate();
+        out.append(value);
+        return this;
+    }
+
+    JsonWriter value(boolean value) {
+        separate();
+        out.append(value);
+        return this;
+    }
+
+    /**
+     * Writes a member of the current object unless its value is null.
+     *
+     * @param name not null
+     * @param value may be null
+     * @return this writer.
+     */
+    JsonWriter optional(String name, String value) {
+        if (value != null) {
+            name(name).value(value);
+        }
+        return this;
+    }
+
+    private void separate() {
+        if (afterName) {
+            afterName = false;
+        } else if (!first) {
+            out.append(',');
+        }
+        first = false;
+    }
+
+    /**
+     * @param value not null
+     * @param json where the value is appended as a JSON string.
+     */
+    static void appendString(String value, StringBuilder json) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        json.append('"');
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.tool.plugin;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The <code>pluginasciidoc</code> resource bundle of a locale, with the messages compiled once per key and formatted
+ * without <code>java.text.MessageFormat</code>, see {@link MessagePattern}.
+ * Instances are safe for use from several threads.
+ *
+ * @author Emmanuel Hugonnet (c) 2018 Red Hat, inc.
+ */
+final class LocalizedMessages {
+
+    /**
+     * Base name of the resource bundle.
+     */
+    static final String BUNDLE_NAME = "pluginasciidoc";
+
+    private final Locale locale;
+
+    private final ResourceBundle bundle;
+
+    private final ConcurrentMap<String, MessagePattern> patterns = new ConcurrentHashMap<String, MessagePattern>();
+
+    /**
+     * @param locale not null
+     * @param classLoader the class loader to load the bundle from.
+     */
+    LocalizedMessages(Locale locale, ClassLoader classLoader) {
+        this.locale = locale;
+        this.bundle = ResourceBundle.getBundle(BUNDLE_NAME, locale, classLoader);
+    }
+
+    Locale getLocale() {
+        return locale;
+    }
+
+    /**
+     * @param key not null
+     * @return Localized, text identified by <code>key</code>.
+     */
+    String getString(String key) {
+        return bundle.getString(key);
+    }
+
+    /**
+     * Formats the value for <code>key</code> using <code>args</code>.
+     *
+     * @param key not null
+     * @param args not null
+     * @return Localized, formatted text identified by <code>key</code>.
+     */
+    String format(String key, Object... args) {
+        return getPattern(key).format(args);
+    }
+
+    /**
+     * Appends the value for <code>key</code> formatted using <code>args</code>, without any intermediate string.
+     *
+     * @param out not null
+     * @param key not null
+     * @param args not null
+     * @throws IOException if any
+     */
+    void formatTo(Appendable out, String key, Object... args) throws IOException {
+        getPattern(key).format(args, out);
+    }
+
+    private MessagePattern getPattern(String key) {
+        MessagePattern pattern = patterns.get(key);
+        if (pattern == null) {
+            // quotes are kept as is, so the resource bundle doesn't need to double them up in some keys
+            pattern = MessagePattern.compile(getString(key), locale);
+            MessagePattern existing = patterns.putIfAbsent(key, pattern);
+            if (existing != null) {
+                pattern = existing;
+            }
+        }
+        return pattern;
+    }
+}
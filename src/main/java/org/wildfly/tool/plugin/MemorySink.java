@@ -0,0 +1,108 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.tool.plugin;
+
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the documents in memory, to embed the generator or to check its output without touching the file system.
+ * Documents are kept in the order they have been first written.
+ *
+ * @author Emmanuel Hugonnet (c) 2018 Red Hat, inc.
+ */
+public final class MemorySink implements OutputSink {
+
+    private final Map<String, byte[]> documents = new LinkedHashMap<String, byte[]>();
+
+    @Override
+    public boolean write(String path, ByteBuffer content) {
+        ByteBuffer bytes = content.duplicate();
+        byte[] document = new byte[bytes.remaining()];
+        bytes.get(document);
+        return put(path, document);
+    }
+
+    @Override
+    public Entry open(final String path) {
+        final StringWriter writer = new StringWriter();
+        return new Entry() {
+            private boolean committed;
+
+            @Override
+            public Writer getWriter() {
+                return writer;
+            }
+
+            @Override
+            public boolean commit() {
+                committed = true;
+                return put(path, writer.toString().getBytes(StandardCharsets.UTF_8));
+            }
+
+            @Override
+            public void discard() {
+                if (!committed) {
+                    writer.getBuffer().setLength(0);
+                }
+            }
+        };
+    }
+
+    private synchronized boolean put(String path, byte[] document) {
+        byte[] previous = documents.put(path, document);
+        return previous == null || !Arrays.equals(previous, document);
+    }
+
+    @Override
+    public synchronized boolean exists(String path) {
+        return documents.containsKey(path);
+    }
+
+    @Override
+    public synchronized void delete(String path) {
+        documents.remove(path);
+    }
+
+    /**
+     * @return the paths of the documents.
+     */
+    public synchronized List<String> getPaths() {
+        return new ArrayList<String>(documents.keySet());
+    }
+
+    /**
+     * @param path not null
+     * @return the content of the document, null if it doesn't exist.
+     */
+    public synchronized String getContent(String path) {
+        byte[] document = documents.get(path);
+        return document == null ? null : new String(document, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() {
+        // the documents stay available
+    }
+}
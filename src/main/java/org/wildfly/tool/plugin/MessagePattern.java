@@ -0,0 +1,131 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.tool.plugin;
+
+import java.io.IOException;
+import java.text.DateFormat;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A message of the resource bundle compiled into literal segments and argument placeholders, appended directly to
+ * the output. Only the <code>{n}</code> placeholders are supported, quotes and any other brace are kept as is, which
+ * is how the bundle patterns are written. Arguments are formatted as <code>java.text.MessageFormat</code> would.
+ * Instances are immutable.
+ *
+ * @author Emmanuel Hugonnet (c) 2018 Red Hat, inc.
+ */
+final class MessagePattern {
+
+    private final Locale locale;
+
+    /**
+     * The literal segments, <code>segments[i]</code> preceding the argument <code>arguments[i]</code>, the last
+     * segment following the last argument.
+     */
+    private final String[] segments;
+
+    private final int[] arguments;
+
+    private MessagePattern(Locale locale, String[] segments, int[] arguments) {
+        this.locale = locale;
+        this.segments = segments;
+        this.arguments = arguments;
+    }
+
+    /**
+     * @param pattern not null
+     * @param locale the locale formatting the numbers and dates, not null
+     * @return the compiled pattern.
+     */
+    static MessagePattern compile(String pattern, Locale locale) {
+        List<String> segments = new ArrayList<String>();
+        List<Integer> arguments = new ArrayList<Integer>();
+        int start = 0;
+        int i = 0;
+        while (i < pattern.length()) {
+            if (pattern.charAt(i) == '{') {
+                int end = i + 1;
+                while (end < pattern.length() && Character.isDigit(pattern.charAt(end))) {
+                    end++;
+                }
+                if (end > i + 1 && end < pattern.length() && pattern.charAt(end) == '}') {
+                    segments.add(pattern.substring(start, i));
+                    arguments.add(Integer.valueOf(pattern.substring(i + 1, end)));
+                    i = end + 1;
+                    start = i;
+                    continue;
+                }
+            }
+            i++;
+        }
+        segments.add(pattern.substring(start));
+        int[] indexes = new int[arguments.size()];
+        for (int j = 0; j < indexes.length; j++) {
+            indexes[j] = arguments.get(j);
+        }
+        return new MessagePattern(locale, segments.toArray(new String[segments.size()]), indexes);
+    }
+
+    /**
+     * @param args not null
+     * @param out where the formatted message is appended
+     * @throws IOException if any
+     */
+    void format(Object[] args, Appendable out) throws IOException {
+        for (int i = 0; i < arguments.length; i++) {
+            out.append(segments[i]);
+            int index = arguments[i];
+            if (index >= args.length) {
+                out.append('{').append(Integer.toString(index)).append('}');
+            } else {
+                appendArgument(args[index], out);
+            }
+        }
+        out.append(segments[arguments.length]);
+    }
+
+    /**
+     * @param args not null
+     * @return the formatted message.
+     */
+    String format(Object[] args) {
+        StringBuilder buffer = new StringBuilder(segments[0].length() + 64);
+        try {
+            format(args, buffer);
+        } catch (IOException e) {
+            // can't happen with a StringBuilder
+            throw new IllegalStateException(e);
+        }
+        return buffer.toString();
+    }
+
+    private void appendArgument(Object arg, Appendable out) throws IOException {
+        if (arg instanceof CharSequence) {
+            out.append((CharSequence) arg);
+        } else if (arg instanceof Number) {
+            out.append(NumberFormat.getInstance(locale).format(arg));
+        } else if (arg instanceof Date) {
+            out.append(DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.SHORT, locale).format(arg));
+        } else {
+            out.append(String.valueOf(arg));
+        }
+    }
+}
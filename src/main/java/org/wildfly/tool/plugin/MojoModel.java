@@ -0,0 +1,147 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.tool.plugin;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import org.apache.maven.plugin.descriptor.MojoDescriptor;
+import org.apache.maven.plugin.descriptor.Parameter;
+
+/**
+ * The locale independent part of a goal documentation, built once per goal and shared by the rendering of every
+ * locale. The documented parameters are kept in their declaration order, or sorted by name for a reproducible
+ * output, and partitioned with the required ones first, followed by the optional ones.
+ * The parameter model is immutable, only the memoized escaped texts make instances not thread safe.
+ *
+ * @author Emmanuel Hugonnet (c) 2018 Red Hat, inc.
+ */
+final class MojoModel {
+
+    private static final Comparator<ParameterModel> BY_NAME = new Comparator<ParameterModel>() {
+        @Override
+        public int compare(ParameterModel parameter, ParameterModel other) {
+            return parameter.getName().compareTo(other.getName());
+        }
+    };
+
+    private final MojoDescriptor mojoDescriptor;
+
+    private final Escaper escaper;
+
+    private final List<ParameterModel> parameters;
+
+    private final List<ParameterModel> partitionedParameters;
+
+    private final int requiredCount;
+
+    /**
+     * @param mojoDescriptor not null
+     */
+    MojoModel(MojoDescriptor mojoDescriptor) {
+        this(mojoDescriptor, null);
+    }
+
+    /**
+     * @param mojoDescriptor not null
+     * @param fragmentCache the descriptions converted by the other goals of the build, null if not shared.
+     */
+    MojoModel(MojoDescriptor mojoDescriptor, FragmentCache fragmentCache) {
+        this(mojoDescriptor, fragmentCache, false);
+    }
+
+    /**
+     * @param mojoDescriptor not null
+     * @param fragmentCache the descriptions converted by the other goals of the build, null if not shared.
+     * @param sorted <code>true</code> to sort the parameters by name instead of keeping their declaration order.
+     */
+    MojoModel(MojoDescriptor mojoDescriptor, FragmentCache fragmentCache, boolean sorted) {
+        this.mojoDescriptor = mojoDescriptor;
+        this.escaper = new Escaper(fragmentCache);
+        @SuppressWarnings("unchecked")
+        List<Parameter> parameterList = mojoDescriptor.getParameters();
+        int size = parameterList == null ? 0 : parameterList.size();
+        ParameterModel[] documented = new ParameterModel[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            Parameter parameter = parameterList.get(i);
+            if (isDocumented(parameter)) {
+                documented[count++] = new ParameterModel(parameter, mojoDescriptor.getSince());
+            }
+        }
+        if (sorted) {
+            Arrays.sort(documented, 0, count, BY_NAME);
+        }
+        // required parameters are added from the start, optional ones from the end in reverse order
+        ParameterModel[] partitioned = new ParameterModel[size];
+        int required = 0;
+        int optional = 0;
+        for (int i = 0; i < count; i++) {
+            ParameterModel model = documented[i];
+            if (model.isRequired()) {
+                partitioned[required++] = model;
+            } else {
+                partitioned[size - ++optional] = model;
+            }
+        }
+        ParameterModel[] ordered = Arrays.copyOf(partitioned, count);
+        for (int i = 0; i < optional; i++) {
+            ordered[required + i] = partitioned[size - 1 - i];
+        }
+        this.parameters = Collections.unmodifiableList(Arrays.asList(Arrays.copyOf(documented, count)));
+        this.partitionedParameters = Collections.unmodifiableList(Arrays.asList(ordered));
+        this.requiredCount = required;
+    }
+
+    MojoDescriptor getMojoDescriptor() {
+        return mojoDescriptor;
+    }
+
+    Escaper getEscaper() {
+        return escaper;
+    }
+
+    /**
+     * @return the parameters to document, not components nor read-only, in their declaration order unless sorted.
+     */
+    List<ParameterModel> getParameters() {
+        return parameters;
+    }
+
+    List<ParameterModel> getRequiredParameters() {
+        return partitionedParameters.subList(0, requiredCount);
+    }
+
+    List<ParameterModel> getOptionalParameters() {
+        return partitionedParameters.subList(requiredCount, partitionedParameters.size());
+    }
+
+    /**
+     * Only the parameters which are neither components nor read-only are documented.
+     *
+     * @param parameter not null
+     * @return <code>true</code> if the parameter must be documented.
+     */
+    private static boolean isDocumented(Parameter parameter) {
+        if (!parameter.isEditable()) {
+            return false;
+        }
+        String expression = parameter.getExpression();
+        return expression == null || !expression.startsWith("${component.");
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.tool.plugin;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.maven.plugin.descriptor.MojoDescriptor;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
+import org.apache.maven.tools.plugin.ExtendedMojoDescriptor;
+import org.codehaus.plexus.util.StringUtils;
+
+/**
+ * The variables of a goal available to the {@link AdocTemplate}.
+ *
+ * @author Emmanuel Hugonnet (c) 2018 Red Hat, inc.
+ */
+final class MojoScope implements TemplateScope {
+
+    private final MojoModel model;
+
+    private final MojoDescriptor mojoDescriptor;
+
+    private final LocalizedMessages messages;
+
+    private final Escaper escaper;
+
+    private final boolean aggregated;
+
+    private final CommonParameters commonParameters;
+
+    private final String commonDocument;
+
+    /**
+     * @param model not null
+     * @param messages not null
+     * @param aggregated <code>true</code> if the goal is rendered in the document aggregating every goal.
+     */
+    MojoScope(MojoModel model, LocalizedMessages messages, boolean aggregated) {
+        this(model, messages, aggregated, null, null);
+    }
+
+    /**
+     * @param model not null
+     * @param messages not null
+     * @param aggregated <code>true</code> if the goal is rendered in the document aggregating every goal.
+     * @param commonParameters the parameters described in a shared document, null if there is no shared document
+     * @param commonDocument the path of the shared document relative to the goal document, null if there is no
+     * shared document
+     */
+    MojoScope(MojoModel model, LocalizedMessages messages, boolean aggregated, CommonParameters commonParameters,
+            String commonDocument) {
+        this.model = model;
+        this.mojoDescriptor = model.getMojoDescriptor();
+        this.messages = messages;
+        this.escaper = model.getEscaper();
+        this.aggregated = aggregated;
+        this.commonParameters = commonParameters;
+        this.commonDocument = commonDocument;
+    }
+
+    /**
+     * @param goal not null
+     * @return the anchor of the goal in the aggregated document.
+     */
+    static String getGoalAnchor(String goal) {
+        return "goal-" + goal;
+    }
+
+    @Override
+    public Object resolve(String name) {
+        switch (name) {
+            case "goal":
+                return mojoDescriptor.getGoal();
+            case "goalAnchor":
+                return getGoalAnchor(mojoDescriptor.getGoal());
+            case "aggregated":
+                return aggregated;
+            case "fullGoalName":
+                return mojoDescriptor.getFullGoalName();
+            case "coordinates":
+                PluginDescriptor pluginDescriptor = mojoDescriptor.getPluginDescriptor();
+                return pluginDescriptor.getGroupId() + ":" + pluginDescriptor.getArtifactId() + ":"
+                        + pluginDescriptor.getVersion() + ":" + mojoDescriptor.getGoal();
+            case "deprecated":
+                return toAsciidoc(mojoDescriptor.getDeprecated());
+            case "description":
+                return toAsciidoc(mojoDescriptor.getDescription());
+            case "projectRequired":
+                return mojoDescriptor.isProjectRequired();
+            case "requiresReports":
+                return mojoDescriptor.isRequiresReports();
+            case "aggregator":
+                return mojoDescriptor.isAggregator();
+            case "directInvocationOnly":
+                return mojoDescriptor.isDirectInvocationOnly();
+            case "dependencyResolutionRequired":
+                return mojoDescriptor.isDependencyResolutionRequired();
+            case "dependencyCollectionRequired":
+                return mojoDescriptor instanceof ExtendedMojoDescriptor
+                        ? ((ExtendedMojoDescriptor) mojoDescriptor).getDependencyCollectionRequired() : null;
+            case "threadSafe":
+                return mojoDescriptor instanceof ExtendedMojoDescriptor
+                        && ((ExtendedMojoDescriptor) mojoDescriptor).isThreadSafe();
+            case "since":
+                return mojoDescriptor.getSince();
+            case "phase":
+                return mojoDescriptor.getPhase();
+            case "executePhase":
+                return mojoDescriptor.getExecutePhase();
+            case "executeGoal":
+                return mojoDescriptor.getExecuteGoal();
+            case "executeLifecycle":
+                return mojoDescriptor.getExecuteLifecycle();
+            case "onlineRequired":
+                return mojoDescriptor.isOnlineRequired();
+            case "notInheritedByDefault":
+                return !mojoDescriptor.isInheritedByDefault();
+            case "hasParameters":
+                return !model.getParameters().isEmpty();
+            case "parameters":
+                return toScopes(model.getParameters());
+            case "parameterGroups":
+                return getParameterGroups();
+            default:
+                return UNDEFINED;
+        }
+    }
+
+    /**
+     * @param parameter a parameter of the goal, not null
+     * @return the variables of the goal, with the variables of the parameter as <code>parameter</code>.
+     */
+    TemplateScope withParameter(final ParameterModel parameter) {
+        return new TemplateScope() {
+            @Override
+            public Object resolve(String name) {
+                return "parameter".equals(name) ? new ParameterScope(parameter, true) : MojoScope.this.resolve(name);
+            }
+        };
+    }
+
+    private String toAsciidoc(String text) {
+        return StringUtils.isNotEmpty(text) ? escaper.htmlToAsciidoc(text) : null;
+    }
+
+    private String toXml(String text) {
+        return StringUtils.isNotEmpty(text) ? escaper.escapeXml(text) : null;
+    }
+
+    private List<TemplateScope> getParameterGroups() {
+        List<TemplateScope> groups = new ArrayList<TemplateScope>(2);
+        List<ParameterModel> requiredParams = model.getRequiredParameters();
+        if (requiredParams.size() > 0) {
+            groups.add(new ParameterGroupScope(messages.getString("pluginasciidoc.mojodescriptor.requiredParameters"),
+                    toScopes(requiredParams)));
+        }
+
+        List<ParameterModel> optionalParams = model.getOptionalParameters();
+        if (optionalParams.size() > 0) {
+            groups.add(new ParameterGroupScope(messages.getString("pluginasciidoc.mojodescriptor.optionalParameters"),
+                    toScopes(optionalParams)));
+        }
+        return groups;
+    }
+
+    /**
+     * @param parameterList not null
+     * @return a view of the parameters as scopes, created while the parameters are rendered so that the rendering
+     * of a goal doesn't hold a scope per parameter.
+     */
+    private List<TemplateScope> toScopes(final List<ParameterModel> parameterList) {
+        return new AbstractList<TemplateScope>() {
+            @Override
+            public TemplateScope get(int index) {
+                return new ParameterScope(parameterList.get(index), index == parameterList.size() - 1);
+            }
+
+            @Override
+            public int size() {
+                return parameterList.size();
+            }
+        };
+    }
+
+    /**
+     * The variables of the required or the optional parameters.
+     */
+    private static final class ParameterGroupScope implements TemplateScope {
+
+        private final String title;
+
+        private final List<TemplateScope> parameters;
+
+        ParameterGroupScope(String title, List<TemplateScope> parameters) {
+            this.title = title;
+            this.parameters = parameters;
+        }
+
+        @Override
+        public Object resolve(String name) {
+            switch (name) {
+                case "title":
+                    return title;
+                case "parameters":
+                    return parameters;
+                default:
+                    return UNDEFINED;
+            }
+        }
+    }
+
+    /**
+     * The variables of a documented parameter.
+     */
+    private final class ParameterScope implements TemplateScope {
+
+        private final ParameterModel parameter;
+
+        private final boolean last;
+
+        ParameterScope(ParameterModel parameter, boolean last) {
+            this.parameter = parameter;
+            this.last = last;
+        }
+
+        @Override
+        public Object resolve(String name) {
+            switch (name) {
+                case "name":
+                    return parameter.getName();
+                case "anchor":
+                    // namespaced by goal in the aggregated document
+                    return aggregated ? mojoDescriptor.getGoal() + "-" + parameter.getName() : parameter.getName();
+                case "type":
+                    return parameter.getType();
+                case "shortType":
+                    return parameter.getShortType();
+                case "since":
+                    return parameter.getSince();
+                // the templates continue the texts of a parameter with its default value or its details
+                case "deprecated":
+                    return HtmlToAsciidoc.closeBlock(toAsciidoc(parameter.getParameter().getDeprecated()));
+                case "description":
+                    return HtmlToAsciidoc.closeBlock(toAsciidoc(parameter.getParameter().getDescription()));
+                case "commonAnchor":
+                    return commonParameters == null ? null : commonParameters.getAnchor(parameter);
+                case "commonDocument":
+                    return commonDocument;
+                case "required":
+                    return parameter.isRequired();
+                case "property":
+                    return parameter.getProperty();
+                case "expression":
+                    return parameter.getExpression();
+                case "defaultValue":
+                    return toXml(parameter.getParameter().getDefaultValue());
+                case "alias":
+                    return toXml(parameter.getParameter().getAlias());
+                case "last":
+                    return last;
+                default:
+                    return UNDEFINED;
+            }
+        }
+    }
+}
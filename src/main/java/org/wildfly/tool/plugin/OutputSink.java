@@ -0,0 +1,94 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.tool.plugin;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+
+/**
+ * Where the generated documents are written. Documents are identified by a path relative to the root of the sink,
+ * with <code>/</code> separators, like <code>en/deploy-mojo.adoc</code>. The documents are written in UTF-8.
+ * Implementations must support writing several documents concurrently, except while a streamed document is open.
+ *
+ * @author Emmanuel Hugonnet (c) 2018 Red Hat, inc.
+ * @see DirectorySink
+ * @see ZipSink
+ * @see MemorySink
+ */
+public interface OutputSink extends Closeable {
+
+    /**
+     * @param path not null
+     * @param content the encoded document, not null, its position is left unchanged.
+     * @return <code>true</code> if the document has been written, <code>false</code> if it was already up to date.
+     * @throws IOException if any
+     */
+    boolean write(String path, ByteBuffer content) throws IOException;
+
+    /**
+     * Opens a document which is written progressively, no other document may be written until it is committed or
+     * discarded.
+     *
+     * @param path not null
+     * @return the document to write.
+     * @throws IOException if any
+     */
+    Entry open(String path) throws IOException;
+
+    /**
+     * @param path not null
+     * @return <code>true</code> if the document has been written by a previous generation.
+     */
+    boolean exists(String path);
+
+    /**
+     * Deletes a document written by a previous generation, if it exists.
+     *
+     * @param path not null
+     * @throws IOException if any
+     */
+    void delete(String path) throws IOException;
+
+    /**
+     * A document written progressively.
+     */
+    interface Entry {
+
+        /**
+         * @return the writer of the document, closed by {@link #commit()} and {@link #discard()}.
+         */
+        Writer getWriter();
+
+        /**
+         * Completes the document.
+         *
+         * @return <code>true</code> if the document has been written, <code>false</code> if it was already up to
+         * date.
+         * @throws IOException if any
+         */
+        boolean commit() throws IOException;
+
+        /**
+         * Drops the document if it hasn't been committed, does nothing otherwise.
+         *
+         * @throws IOException if any
+         */
+        void discard() throws IOException;
+    }
+}
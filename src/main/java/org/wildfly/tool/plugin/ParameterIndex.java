@@ -0,0 +1,103 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.tool.plugin;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.maven.plugin.descriptor.MojoDescriptor;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
+
+/**
+ * The documented parameters of a plugin as a compact JSON document, for the tools which need them without parsing
+ * the plugin descriptor. The goals and their parameters are objects keyed by name, and the <code>properties</code>
+ * object maps each user property to the parameters it sets, so that a property is resolved with two lookups:
+ * <pre>
+ * {"plugin":{"groupId":...,"artifactId":...,"version":...,"goalPrefix":...},
+ *  "goals":{"deploy":{"parameters":{"hostname":{"type":"java.lang.String","required":false,
+ *      "property":"wildfly.hostname","defaultValue":"localhost","since":"1.0"}}}},
+ *  "properties":{"wildfly.hostname":[{"goal":"deploy","parameter":"hostname"}]}}
+ * </pre>
+ *
+ * @author Emmanuel Hugonnet (c) 2018 Red Hat, inc.
+ */
+final class ParameterIndex {
+
+    /**
+     * Name of the index in the output directory.
+     */
+    static final String FILENAME = "plugin-parameters.json";
+
+    private ParameterIndex() {
+    }
+
+    /**
+     * @param pluginDescriptor not null
+     * @param models the documented goals, not null
+     * @return the index of the parameters.
+     */
+    static String toJson(PluginDescriptor pluginDescriptor, List<MojoModel> models) {
+        StringBuilder buffer = new StringBuilder(256 + models.size() * 1024);
+        JsonWriter json = new JsonWriter(buffer);
+        json.beginObject();
+        json.name("plugin").beginObject()
+                .optional("groupId", pluginDescriptor.getGroupId())
+                .optional("artifactId", pluginDescriptor.getArtifactId())
+                .optional("version", pluginDescriptor.getVersion())
+                .optional("goalPrefix", pluginDescriptor.getGoalPrefix())
+                .endObject();
+        Map<String, List<String[]>> properties = new LinkedHashMap<String, List<String[]>>();
+        json.name("goals").beginObject();
+        for (MojoModel model : models) {
+            MojoDescriptor mojoDescriptor = model.getMojoDescriptor();
+            json.name(mojoDescriptor.getGoal()).beginObject().name("parameters").beginObject();
+            for (ParameterModel parameter : model.getParameters()) {
+                json.name(parameter.getName()).beginObject()
+                        .optional("type", parameter.getType())
+                        .name("required").value(parameter.isRequired())
+                        .optional("property", parameter.getProperty())
+                        .optional("defaultValue", parameter.getParameter().getDefaultValue())
+                        .optional("alias", parameter.getParameter().getAlias())
+                        .optional("since", parameter.getSince())
+                        .optional("deprecated", parameter.getParameter().getDeprecated())
+                        .endObject();
+                if (parameter.getProperty() != null) {
+                    List<String[]> parameters = properties.get(parameter.getProperty());
+                    if (parameters == null) {
+                        parameters = new ArrayList<String[]>(1);
+                        properties.put(parameter.getProperty(), parameters);
+                    }
+                    parameters.add(new String[] {mojoDescriptor.getGoal(), parameter.getName()});
+                }
+            }
+            json.endObject().endObject();
+        }
+        json.endObject();
+        json.name("properties").beginObject();
+        for (Map.Entry<String, List<String[]>> property : properties.entrySet()) {
+            json.name(property.getKey()).beginArray();
+            for (String[] parameter : property.getValue()) {
+                json.beginObject().name("goal").value(parameter[0]).name("parameter").value(parameter[1]).endObject();
+            }
+            json.endArray();
+        }
+        json.endObject();
+        json.endObject();
+        return buffer.append('\n').toString();
+    }
+}
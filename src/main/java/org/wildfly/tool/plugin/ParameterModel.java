@@ -0,0 +1,103 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.tool.plugin;
+
+import org.apache.maven.plugin.descriptor.Parameter;
+import org.codehaus.plexus.util.StringUtils;
+
+/**
+ * A documented parameter with the values derived from its descriptor computed once.
+ *
+ * @author Emmanuel Hugonnet (c) 2018 Red Hat, inc.
+ */
+final class ParameterModel {
+
+    private final Parameter parameter;
+
+    private final String shortType;
+
+    private final String since;
+
+    private final String property;
+
+    /**
+     * @param parameter not null
+     * @param mojoSince the version since the goal exists, may be null
+     */
+    ParameterModel(Parameter parameter, String mojoSince) {
+        this.parameter = parameter;
+        String type = parameter.getType();
+        this.shortType = type == null ? null : type.substring(type.lastIndexOf('.') + 1);
+        if (StringUtils.isNotEmpty(parameter.getSince())) {
+            this.since = parameter.getSince();
+        } else {
+            this.since = StringUtils.isNotEmpty(mojoSince) ? mojoSince : null;
+        }
+        this.property = getPropertyFromExpression(parameter.getExpression());
+    }
+
+    Parameter getParameter() {
+        return parameter;
+    }
+
+    String getName() {
+        return parameter.getName();
+    }
+
+    String getType() {
+        return parameter.getType();
+    }
+
+    /**
+     * @return the simple name of the type.
+     */
+    String getShortType() {
+        return shortType;
+    }
+
+    /**
+     * @return the version since the parameter exists, defaulting to the one of its goal, null if unknown.
+     */
+    String getSince() {
+        return since;
+    }
+
+    boolean isRequired() {
+        return parameter.isRequired();
+    }
+
+    /**
+     * @return the property of the parameter, null if it can't be extracted from its expression.
+     */
+    String getProperty() {
+        return property;
+    }
+
+    String getExpression() {
+        return parameter.getExpression();
+    }
+
+    private static String getPropertyFromExpression(String expression) {
+        if (StringUtils.isNotEmpty(expression) && expression.startsWith("${") && expression.endsWith("}")
+                && !expression.substring(2).contains("${")) {
+            // expression="${xxx}" -> property="xxx"
+            return expression.substring(2, expression.length() - 1);
+        }
+        // no property can be extracted
+        return null;
+    }
+}
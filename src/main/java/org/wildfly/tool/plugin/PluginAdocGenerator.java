@@ -17,22 +17,34 @@
 package org.wildfly.tool.plugin;
 
 import java.io.File;
+import java.io.FilterWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.text.MessageFormat;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
-import java.util.ResourceBundle;
+import java.util.Map;
+import java.util.MissingResourceException;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.apache.maven.plugin.descriptor.MojoDescriptor;
-import org.apache.maven.plugin.descriptor.Parameter;
-import org.apache.maven.tools.plugin.ExtendedMojoDescriptor;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
 import org.apache.maven.tools.plugin.PluginToolsRequest;
 import org.apache.maven.tools.plugin.generator.GeneratorException;
-import org.apache.maven.tools.plugin.generator.GeneratorUtils;
-import org.codehaus.plexus.util.IOUtil;
-import org.codehaus.plexus.util.StringUtils;
 
 /**
  *
@@ -41,523 +53,1212 @@ import org.codehaus.plexus.util.StringUtils;
 public class PluginAdocGenerator implements org.apache.maven.tools.plugin.generator.Generator {
 
     /**
-     * locale
+     * Initial size of the buffer a goal is rendered into.
      */
-    private final Locale locale;
+    private static final int OUTPUT_BUFFER_SIZE = 16 * 1024;
+
+    /**
+     * Name of the document aggregating every goal.
+     */
+    static final String AGGREGATED_FILENAME = "plugin.adoc";
+
+    /**
+     * Default number of fragments rendered on demand kept in memory.
+     */
+    private static final int DEFAULT_RENDER_CACHE_SIZE = 256;
+
+    private static final Comparator<MojoDescriptor> BY_GOAL = new Comparator<MojoDescriptor>() {
+        @Override
+        public int compare(MojoDescriptor mojoDescriptor, MojoDescriptor other) {
+            return mojoDescriptor.getGoal().compareTo(other.getGoal());
+        }
+    };
+
+    /**
+     * Writes the rendered goals to disk.
+     */
+    private final AdocFileWriter fileWriter = new AdocFileWriter(StandardCharsets.UTF_8);
+
+    /**
+     * Localized messages of each rendered locale.
+     */
+    private final List<LocalizedMessages> localizations;
+
+    /**
+     * Whether each locale is rendered in a subdirectory named after the locale.
+     */
+    private final boolean localeDirectories;
+
+    /**
+     * File keeping the goal fingerprints between builds, null to always regenerate every goal.
+     */
+    private File stateFile;
+
+    /**
+     * Number of threads rendering the goals.
+     */
+    private int threads = 1;
+
+    /**
+     * Maximum number of rendered documents waiting to be written by the writer threads, 0 to write each document
+     * from the thread which rendered it.
+     */
+    private int writeQueueSize;
+
+    /**
+     * User supplied template file, null to use the default template.
+     */
+    private File templateFile;
+
+    /**
+     * The compiled template, shared by all the goals.
+     */
+    private AdocTemplate template;
+
+    /**
+     * Whether all the goals are written to a single document.
+     */
+    private boolean aggregated;
+
+    /**
+     * Where the documents are written, null to write them to the destination directory.
+     */
+    private OutputSink outputSink;
+
+    /**
+     * Whether the JSON index of the parameters is written along the documentation.
+     */
+    private boolean parameterIndex;
+
+    /**
+     * Where the JSON index of the parameters is written, null to write it to the sink.
+     */
+    private File parameterIndexFile;
+
+    /**
+     * Fragments shared with the other generations of the build, null if not shared.
+     */
+    private FragmentCache fragmentCache;
+
+    /**
+     * Whether the output only depends on the plugin descriptor, see {@link #setReproducible(boolean)}.
+     */
+    private boolean reproducible;
+
+    /**
+     * Whether the parameters documented identically by several goals are described in a shared document.
+     */
+    private boolean commonParameters;
+
+    /**
+     * The parameters shared with the goals of other plugins, null if the generator registers its own goals.
+     */
+    private CommonParameters sharedParameters;
+
+    /**
+     * The parameters described in a shared document by the current generation, null if there is no shared document.
+     */
+    private volatile CommonParameters currentCommonParameters;
+
+    /**
+     * The fragments rendered on demand, see {@link #renderGoal(MojoDescriptor, Locale, Appendable)}.
+     */
+    private volatile RenderCache<RenderedFragment> renderCache =
+            new RenderCache<RenderedFragment>(DEFAULT_RENDER_CACHE_SIZE);
+
+    /**
+     * Localized messages of the locales rendered on demand which aren't generated by {@link #execute}.
+     */
+    private final ConcurrentMap<Locale, LocalizedMessages> renderLocalizations =
+            new ConcurrentHashMap<Locale, LocalizedMessages>();
+
+    /**
+     * Measures of the last generation.
+     */
+    private volatile GenerationMetrics metrics;
+
+    /**
+     * Digests of the documents of the current generation, null if the generation isn't reproducible.
+     */
+    private volatile ContentManifest manifest;
 
     public PluginAdocGenerator() {
-        this.locale = Locale.ENGLISH;
+        this(Locale.ENGLISH);
     }
 
     public PluginAdocGenerator(Locale locale) {
-        this.locale = locale;
+        this(Collections.singletonList(locale), false);
     }
 
-    @Override
-    public void execute(File destinationDirectory, PluginToolsRequest request) throws GeneratorException {
-        try {
-            if (request.getPluginDescriptor().getMojos() != null) {
-                @SuppressWarnings("unchecked")
-                List<MojoDescriptor> mojos = request.getPluginDescriptor().getMojos();
+    /**
+     * Renders every locale in a single pass over the goals, each locale in a subdirectory named after the locale.
+     *
+     * @param locales not empty
+     */
+    public PluginAdocGenerator(List<Locale> locales) {
+        this(locales, true);
+    }
 
-                for (MojoDescriptor descriptor : mojos) {
-                    processMojoDescriptor(descriptor, destinationDirectory);
-                }
-            }
-        } catch (IOException e) {
-            throw new GeneratorException(e.getMessage(), e);
+    private PluginAdocGenerator(List<Locale> locales, boolean localeDirectories) {
+        if (locales.isEmpty()) {
+            throw new IllegalArgumentException("At least one locale must be generated");
+        }
+        this.localizations = new ArrayList<LocalizedMessages>(locales.size());
+        for (Locale locale : locales) {
+            localizations.add(new LocalizedMessages(locale, getClass().getClassLoader()));
         }
+        this.localeDirectories = localeDirectories;
+    }
 
+    /**
+     * Enables incremental generation: only the goals whose fingerprint differs from the one recorded in
+     * <code>stateFile</code> are regenerated, and the outputs of removed goals are deleted.
+     *
+     * @param stateFile the state file, null to disable incremental generation.
+     */
+    public void setStateFile(File stateFile) {
+        this.stateFile = stateFile;
     }
 
     /**
-     * @param mojoDescriptor not null
-     * @param destinationDirectory not null
-     * @throws IOException if any
+     * Sets the number of threads rendering the goals concurrently, each goal being written to its own file. The
+     * goals written to a sink set with {@link #setOutputSink(OutputSink)} are always rendered sequentially.
+     *
+     * @param threads the number of threads, 1 to render the goals sequentially.
      */
-    protected void processMojoDescriptor(MojoDescriptor mojoDescriptor, File destinationDirectory)
-            throws IOException {
-        File outputFile = new File(destinationDirectory, getMojoFilename(mojoDescriptor, "adoc"));
-        String encoding = "UTF-8";
-        PrintWriter writer = null;
-        try {
-            writer = new PrintWriter(outputFile, encoding);
-            writeBody(mojoDescriptor, writer);
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("The number of generator threads must be at least 1");
+        }
+        this.threads = threads;
+    }
 
-            writer.flush();
-        } finally {
-            IOUtil.close(writer);
+    /**
+     * Separates the rendering of the goals from the writing of their documents: the rendered documents are queued
+     * and written concurrently by writer threads, virtual threads when the runtime supports them. At most
+     * <code>writeQueueSize</code> rendered documents are queued or being written, bounding the memory they hold.
+     *
+     * @param writeQueueSize the size of the queue, 0 to write each document from the thread which rendered it.
+     */
+    public void setWriteQueueSize(int writeQueueSize) {
+        if (writeQueueSize < 0) {
+            throw new IllegalArgumentException("The size of the write queue can't be negative");
         }
+        this.writeQueueSize = writeQueueSize;
     }
 
     /**
-     * @param mojo not null
-     * @param ext not null
-     * @return the output file name
+     * Sets the template rendering the goals, see {@link AdocTemplate} for its syntax.
+     *
+     * @param templateFile the template file, null to use the default template.
      */
-    private String getMojoFilename(MojoDescriptor mojo, String ext) {
-        return mojo.getGoal() + "-mojo." + ext;
+    public void setTemplateFile(File templateFile) {
+        synchronized (this) {
+            this.templateFile = templateFile;
+            this.template = null;
+        }
+        renderCache.clear();
     }
 
     /**
-     * @param mojoDescriptor not null
-     * @param w not null
+     * Writes every goal to a single <code>plugin.adoc</code> document, starting with an index of the goals.
+     * The parameter anchors are prefixed by the goal so that they don't collide. Switching the mode only deletes
+     * the documents of the other mode recorded by the {@link #setStateFile(File) state} of an incremental generation,
+     * a generation without a state never deletes a document it didn't write.
+     *
+     * @param aggregated <code>true</code> to write a single document, <code>false</code> to write a document per goal.
      */
-    private void writeBody(MojoDescriptor mojoDescriptor, PrintWriter w) {
-        writeTitle(w, mojoDescriptor.getGoal()); // title
+    public void setAggregated(boolean aggregated) {
+        this.aggregated = aggregated;
+    }
 
-        writeSection(w, mojoDescriptor.getFullGoalName(), getString("pluginasciidoc.mojodescriptor.fullname"),
-                mojoDescriptor.getPluginDescriptor().getGroupId() + ":"
-                + mojoDescriptor.getPluginDescriptor().getArtifactId() + ":"
-                + mojoDescriptor.getPluginDescriptor().getVersion() + ":" + mojoDescriptor.getGoal());
+    /**
+     * Writes the documents to a sink, like a zip archive or memory, instead of the destination directory. The sink
+     * isn't closed by the generator. The documents are written in goal order, the goals being rendered sequentially,
+     * as the order of the entries of an archive is part of its content.
+     *
+     * @param outputSink the sink, null to write the documents to the destination directory.
+     */
+    public void setOutputSink(OutputSink outputSink) {
+        this.outputSink = outputSink;
+    }
 
-        if (StringUtils.isNotEmpty(mojoDescriptor.getDeprecated())) {
-            writeSection(w, getString("pluginasciidoc.mojodescriptor.deprecated"), makeHtmlValid(mojoDescriptor.getDeprecated()));
-        }
-        if (StringUtils.isNotEmpty(mojoDescriptor.getDescription())) {
-            writeSection(w, getString("pluginasciidoc.description"), makeHtmlValid(mojoDescriptor.getDescription()));
-        } else {
-            writeSection(w, getString("pluginasciidoc.description"), getString("pluginasciidoc.nodescription"));
+    /**
+     * Writes a JSON index of the documented parameters, <code>plugin-parameters.json</code>, in the same pass as
+     * the documentation, see {@link ParameterIndex} for its layout.
+     *
+     * @param parameterIndex <code>true</code> to write the index.
+     */
+    public void setParameterIndex(boolean parameterIndex) {
+        this.parameterIndex = parameterIndex;
+    }
+
+    /**
+     * Writes the JSON index of the parameters to a file outside of the documentation, like next to the plugin
+     * descriptor, when {@link #setParameterIndex(boolean) enabled}. The file isn't listed in the content manifest.
+     *
+     * @param parameterIndexFile the file, null to write the index along the documentation.
+     */
+    public void setParameterIndexFile(File parameterIndexFile) {
+        this.parameterIndexFile = parameterIndexFile;
+    }
+
+    /**
+     * Shares the converted descriptions and the localized messages with the other generations of the build.
+     *
+     * @param fragmentCache the shared cache, null to only cache the fragments of this generator.
+     */
+    public void setFragmentCache(FragmentCache fragmentCache) {
+        this.fragmentCache = fragmentCache;
+        if (fragmentCache != null) {
+            for (int i = 0; i < localizations.size(); i++) {
+                localizations.set(i, fragmentCache.getMessages(localizations.get(i).getLocale(),
+                        getClass().getClassLoader()));
+            }
         }
+    }
 
-        writeGoalAttributes(mojoDescriptor, w);
+    /**
+     * Makes identical plugin descriptors produce byte identical documents, whatever the order in which the goals
+     * and the parameters were extracted and whatever the platform, so that the generated sources can be cached by
+     * the build: the goals are sorted by name, the parameters of each goal too, the line endings are
+     * <code>\n</code>, and the SHA-256 digests of the documents are written to a <code>plugin-docs.sha256</code>
+     * manifest.
+     *
+     * @param reproducible <code>true</code> to generate a reproducible output.
+     */
+    public void setReproducible(boolean reproducible) {
+        this.reproducible = reproducible;
+        renderCache.clear();
+    }
 
-        writeGoalParameterTable(mojoDescriptor, w);
+    /**
+     * Describes the parameters documented identically by several goals once, in a shared
+     * <code>common-parameters.adoc</code> document written in the directory of the goal documents, the goal
+     * documents linking to it instead of repeating the description. The other attributes of a parameter, like its
+     * default value, are still documented by each goal. The shared document is deleted when no parameter is shared.
+     *
+     * @param commonParameters <code>true</code> to write the shared document.
+     */
+    public void setCommonParameters(boolean commonParameters) {
+        this.commonParameters = commonParameters;
+        renderCache.clear();
     }
 
-    private void writeTitle(PrintWriter w, String title) {
-        w.print("### ");
-        w.println(title);
-        w.println();
+    /**
+     * Links the shared parameters to a document shared with the goals of other plugins. The plugins must have been
+     * registered before the generation, and the shared document is written by the caller, see
+     * {@link CommonParameters}. Takes precedence over {@link #setCommonParameters(boolean)}.
+     *
+     * @param sharedParameters the parameters registered for all the plugins, null to not share them with other
+     * plugins.
+     */
+    public void setSharedParameters(CommonParameters sharedParameters) {
+        this.sharedParameters = sharedParameters;
+        renderCache.clear();
     }
 
-    private void writeSection(PrintWriter w, String title, String... content) {
-        w.println();
-        w.print("#### ");
-        w.println(title);
-        for (String line : content) {
-            w.println(line);
+    /**
+     * Sets the number of fragments rendered by {@link #renderGoal(MojoDescriptor, Locale, Appendable)} and
+     * {@link #renderParameter(MojoDescriptor, String, Locale, Appendable)} kept in memory, the least recently used
+     * fragment being evicted once the cache is full.
+     *
+     * @param renderCacheSize the maximum number of cached fragments, 0 to render every fragment again.
+     */
+    public void setRenderCacheSize(int renderCacheSize) {
+        if (renderCacheSize < 0) {
+            throw new IllegalArgumentException("The size of the render cache can't be negative");
         }
-        w.println();
+        this.renderCache = new RenderCache<RenderedFragment>(renderCacheSize);
     }
 
     /**
-     * @param mojoDescriptor not null
-     * @param w not null
+     * Drops the fragments rendered by {@link #renderGoal(MojoDescriptor, Locale, Appendable)} and
+     * {@link #renderParameter(MojoDescriptor, String, Locale, Appendable)}. A goal whose descriptor is replaced, like
+     * a SNAPSHOT plugin read again, is rendered again anyway: this is only needed once a descriptor which has
+     * already been rendered is modified in place, or once plugins are registered to the
+     * {@link #setSharedParameters(CommonParameters) shared parameters}.
      */
-    private void writeGoalAttributes(MojoDescriptor mojoDescriptor, PrintWriter w) {
-        writeSection(w, getString("pluginasciidoc.mojodescriptor.attributes"));
-        w.println();
+    public void invalidateRenderCache() {
+        renderCache.clear();
+    }
 
-        String value;
-        if (mojoDescriptor.isProjectRequired()) {
-            w.print("* ");
-            w.println(getString("pluginasciidoc.mojodescriptor.projectRequired"));
-        }
+    /**
+     * Renders the documentation of a goal, as written by {@link #execute(File, PluginToolsRequest)}, without
+     * writing any file. The parameters shared with other goals link to the shared document like the generated
+     * documents do, the goals of the plugin of <code>mojoDescriptor</code> being registered when
+     * {@link #setCommonParameters(boolean) enabled} without {@link #setSharedParameters(CommonParameters) shared
+     * parameters}. The rendered documentation is cached by plugin coordinates, goal and locale, so that a goal which
+     * is rendered again is served from memory as long as it is rendered from the same descriptor instance, see
+     * {@link #setRenderCacheSize(int)} and {@link #invalidateRenderCache()}.
+     *
+     * @param mojoDescriptor the goal, attached to its plugin descriptor, not null
+     * @param locale the locale of the documentation, not null
+     * @param out where the documentation is appended, not null
+     * @throws IOException if the template can't be read or <code>out</code> fails.
+     * @throws GeneratorException if the template uses a message missing from the resource bundle.
+     */
+    public void renderGoal(MojoDescriptor mojoDescriptor, Locale locale, Appendable out)
+            throws IOException, GeneratorException {
+        out.append(render(mojoDescriptor, null, locale));
+    }
 
-        if (mojoDescriptor.isRequiresReports()) {
-            w.print("* ");
-            w.println(getString("pluginasciidoc.mojodescriptor.reportingMojo"));
-        }
+    /**
+     * Renders the details of a single parameter of a goal, as documented in the parameter details of the goal,
+     * without writing any file. The rendered details are cached like the goals, see
+     * {@link #renderGoal(MojoDescriptor, Locale, Appendable)}. The details are rendered with the default layout,
+     * whatever the template set with {@link #setTemplateFile(File)}.
+     *
+     * @param mojoDescriptor the goal, attached to its plugin descriptor, not null
+     * @param parameterName the name of a documented parameter of the goal, not null
+     * @param locale the locale of the documentation, not null
+     * @param out where the details are appended, not null
+     * @throws IOException if the template can't be read or <code>out</code> fails.
+     * @throws GeneratorException if the bundle misses a message of the parameter details.
+     * @throws IllegalArgumentException if the goal doesn't document the parameter.
+     */
+    public void renderParameter(MojoDescriptor mojoDescriptor, String parameterName, Locale locale, Appendable out)
+            throws IOException, GeneratorException {
+        out.append(render(mojoDescriptor, parameterName, locale));
+    }
 
-        if (mojoDescriptor.isAggregator()) {
-            w.print("* ");
-            w.println(getString("pluginasciidoc.mojodescriptor.aggregator"));
+    /**
+     * @param mojoDescriptor not null
+     * @param parameterName the parameter to render, null to render the goal
+     * @param locale not null
+     * @return the rendered fragment, from the cache if it has already been rendered.
+     * @throws IOException if any
+     * @throws GeneratorException if a message is missing from the resource bundle.
+     */
+    private String render(MojoDescriptor mojoDescriptor, String parameterName, Locale locale)
+            throws IOException, GeneratorException {
+        RenderCache<RenderedFragment> cache = renderCache;
+        PluginDescriptor pluginDescriptor = mojoDescriptor.getPluginDescriptor();
+        String key = pluginDescriptor.getGroupId() + ':' + pluginDescriptor.getArtifactId() + ':'
+                + pluginDescriptor.getVersion() + ':' + mojoDescriptor.getGoal() + '/' + locale
+                + (parameterName == null ? "" : '#' + parameterName);
+        RenderedFragment rendered = cache.get(key);
+        // a SNAPSHOT descriptor read again is a new instance, even if its coordinates are the same
+        if (rendered == null || rendered.mojoDescriptor != mojoDescriptor) {
+            CommonParameters common = sharedParameters;
+            if (common == null && commonParameters) {
+                common = new CommonParameters("");
+                common.register(pluginDescriptor);
+            }
+            MojoModel model = new MojoModel(mojoDescriptor, fragmentCache, reproducible);
+            LocalizedMessages messages = getMessages(locale);
+            MojoScope scope = new MojoScope(model, messages, false, common, getCommonDocument(common, messages));
+            StringBuilder buffer = new StringBuilder(OUTPUT_BUFFER_SIZE);
+            try {
+                if (parameterName == null) {
+                    getTemplate().render(scope, messages, buffer);
+                } else {
+                    AdocTemplate.getDefaultParameter().render(scope.withParameter(getParameter(model, parameterName)),
+                            messages, buffer);
+                }
+            } catch (MissingResourceException e) {
+                throw toGeneratorException(e, parameterName == null ? getTemplateName()
+                        : AdocTemplate.DEFAULT_PARAMETER_TEMPLATE);
+            }
+            if (reproducible) {
+                toLineFeeds(buffer);
+            }
+            rendered = new RenderedFragment(mojoDescriptor, buffer.toString());
+            cache.put(key, rendered);
         }
+        return rendered.fragment;
+    }
 
-        if (mojoDescriptor.isDirectInvocationOnly()) {
-            w.print("* ");
-            w.println(getString("pluginasciidoc.mojodescriptor.directInvocationOnly"));
+    /**
+     * @param model not null
+     * @param parameterName not null
+     * @return the documented parameter of the goal.
+     * @throws IllegalArgumentException if the goal doesn't document the parameter.
+     */
+    private static ParameterModel getParameter(MojoModel model, String parameterName) {
+        for (ParameterModel parameter : model.getParameters()) {
+            if (parameterName.equals(parameter.getName())) {
+                return parameter;
+            }
         }
+        throw new IllegalArgumentException("The goal " + model.getMojoDescriptor().getGoal()
+                + " doesn't document the parameter " + parameterName);
+    }
 
-        value = mojoDescriptor.isDependencyResolutionRequired();
-        if (StringUtils.isNotEmpty(value)) {
-            w.print("* ");
-            w.println(format("pluginasciidoc.mojodescriptor.dependencyResolutionRequired", value));
+    /**
+     * @param locale not null
+     * @return the messages of the locale, loaded once.
+     */
+    private LocalizedMessages getMessages(Locale locale) {
+        for (LocalizedMessages messages : localizations) {
+            if (messages.getLocale().equals(locale)) {
+                return messages;
+            }
+        }
+        if (fragmentCache != null) {
+            return fragmentCache.getMessages(locale, getClass().getClassLoader());
         }
+        LocalizedMessages messages = renderLocalizations.get(locale);
+        if (messages == null) {
+            messages = new LocalizedMessages(locale, getClass().getClassLoader());
+            LocalizedMessages previous = renderLocalizations.putIfAbsent(locale, messages);
+            if (previous != null) {
+                messages = previous;
+            }
+        }
+        return messages;
+    }
 
-        if (mojoDescriptor instanceof ExtendedMojoDescriptor) {
-            ExtendedMojoDescriptor extendedMojoDescriptor = (ExtendedMojoDescriptor) mojoDescriptor;
+    /**
+     * @return the measures of the last generation, null if the generator hasn't been executed.
+     */
+    public GenerationMetrics getMetrics() {
+        return metrics;
+    }
 
-            value = extendedMojoDescriptor.getDependencyCollectionRequired();
-            if (StringUtils.isNotEmpty(value)) {
-                w.print("* ");
-                w.println(format("pluginasciidoc.mojodescriptor.dependencyCollectionRequired", value));
+    @Override
+    public void execute(File destinationDirectory, PluginToolsRequest request) throws GeneratorException {
+        PluginDescriptor pluginDescriptor = request.getPluginDescriptor();
+        GenerationMetrics currentMetrics = new GenerationMetrics(pluginDescriptor.getGroupId() + ':'
+                + pluginDescriptor.getArtifactId() + ':' + pluginDescriptor.getVersion());
+        metrics = currentMetrics;
+        ContentManifest currentManifest = reproducible ? new ContentManifest() : null;
+        manifest = currentManifest;
+        CommonParameters common = sharedParameters;
+        if (common == null && commonParameters) {
+            common = new CommonParameters("");
+        }
+        currentCommonParameters = common;
+        try {
+            GenerationState previousState = stateFile == null ? null : GenerationState.load(stateFile);
+            GenerationState currentState = new GenerationState();
+            currentState.setAggregated(aggregated);
+            @SuppressWarnings("unchecked")
+            List<MojoDescriptor> mojos = pluginDescriptor.getMojos();
+            if (mojos == null) {
+                mojos = Collections.emptyList();
+            } else if (reproducible) {
+                mojos = new ArrayList<MojoDescriptor>(mojos);
+                Collections.sort(mojos, BY_GOAL);
             }
 
-            if (extendedMojoDescriptor.isThreadSafe()) {
-                w.print("* ");
-                w.println(getString("pluginasciidoc.mojodescriptor.threadSafe"));
+            OutputSink sink = outputSink == null ? new DirectorySink(destinationDirectory, fileWriter) : outputSink;
+            Boolean previouslyAggregated = previousState == null ? null : previousState.isAggregated();
+            if (previouslyAggregated != null && previouslyAggregated.booleanValue() != aggregated) {
+                deleteOtherMode(previousState.getGoals(), sink);
+                // nothing generated in the other mode is up to date
+                previousState = new GenerationState();
             }
 
-        }
+            List<MojoModel> models = new ArrayList<MojoModel>(mojos.size());
+            for (MojoDescriptor descriptor : mojos) {
+                models.add(new MojoModel(descriptor, fragmentCache, reproducible));
+            }
+            if (common != null && sharedParameters == null) {
+                // every goal must be registered before knowing which parameters are shared
+                for (MojoModel model : models) {
+                    common.register(model);
+                }
+            }
+            List<MojoModel> outdated = new ArrayList<MojoModel>(mojos.size());
+            for (MojoModel model : models) {
+                MojoDescriptor descriptor = model.getMojoDescriptor();
+                boolean upToDate = previousState != null;
+                if (previousState != null) {
+                    for (LocalizedMessages messages : localizations) {
+                        String fingerprint = DescriptorFingerprint.compute(descriptor, messages.getLocale(),
+                                getTemplateId(model, messages));
+                        String path = getGoalPath(messages, descriptor.getGoal());
+                        String outputPath = getOutputPath(messages, descriptor.getGoal());
+                        currentState.putFingerprint(path, fingerprint);
+                        upToDate &= fingerprint.equals(previousState.getFingerprint(path))
+                                && sink.exists(outputPath) && hasDigest(previousState, outputPath);
+                    }
+                }
+                if (!upToDate) {
+                    outdated.add(model);
+                } else if (!aggregated) {
+                    for (LocalizedMessages messages : localizations) {
+                        currentMetrics.recordUpToDate(getGoalPath(messages, descriptor.getGoal()),
+                                model.getParameters().size());
+                        keepDigest(previousState, getOutputPath(messages, descriptor.getGoal()));
+                    }
+                }
+            }
 
-        value = mojoDescriptor.getSince();
-        if (StringUtils.isNotEmpty(value)) {
-            w.print("* ");
-            w.println(format("pluginasciidoc.mojodescriptor.since", value));
+            if (aggregated) {
+                boolean upToDate = outdated.isEmpty() && isSameGoals(previousState, currentState);
+                for (LocalizedMessages messages : localizations) {
+                    upToDate = upToDate && hasDigest(previousState, getOutputPath(messages, null));
+                }
+                if (!upToDate) {
+                    writeAggregated(pluginDescriptor, models, sink);
+                } else {
+                    for (LocalizedMessages messages : localizations) {
+                        currentMetrics.recordUpToDate(getGoalPath(messages, AGGREGATED_FILENAME), 0);
+                        keepDigest(previousState, getOutputPath(messages, null));
+                    }
+                }
+            } else {
+                processMojoModels(outdated, sink);
+                if (previousState != null) {
+                    deleteRemovedGoals(previousState, currentState, sink);
+                }
+            }
+            if (common != null && sharedParameters == null) {
+                writeCommonParameters(common, sink);
+            }
+            if (parameterIndex) {
+                ByteBuffer index = fileWriter.encode(ParameterIndex.toJson(pluginDescriptor, models));
+                if (parameterIndexFile != null) {
+                    Path target = parameterIndexFile.toPath();
+                    Files.createDirectories(target.toAbsolutePath().getParent());
+                    fileWriter.write(target, index);
+                } else {
+                    if (currentManifest != null) {
+                        currentManifest.add(ParameterIndex.FILENAME, index);
+                    }
+                    sink.write(ParameterIndex.FILENAME, index);
+                }
+            }
+            if (currentManifest != null) {
+                for (Map.Entry<String, String> digest : currentManifest.getDigests().entrySet()) {
+                    currentState.putDigest(digest.getKey(), digest.getValue());
+                }
+                sink.write(ContentManifest.FILENAME, fileWriter.encode(currentManifest.toText()));
+            }
+            if (previousState != null) {
+                currentState.store(stateFile);
+            }
+        } catch (IOException e) {
+            throw new GeneratorException(e.getMessage(), e);
+        } catch (MissingResourceException e) {
+            throw toGeneratorException(e, getTemplateName());
+        } finally {
+            currentMetrics.stop();
+            manifest = null;
+            currentCommonParameters = null;
         }
 
-        value = mojoDescriptor.getPhase();
-        if (StringUtils.isNotEmpty(value)) {
-            w.print("* ");
-            w.println(format("pluginasciidoc.mojodescriptor.phase", value));
-        }
+    }
 
-        value = mojoDescriptor.getExecutePhase();
-        if (StringUtils.isNotEmpty(value)) {
-            w.print("* ");
-            w.println(format("pluginasciidoc.mojodescriptor.executePhase", value));
-        }
+    /**
+     * @param previousState not null
+     * @param outputPath not null
+     * @return <code>true</code> if the digest of the document is known when the generation is reproducible.
+     */
+    private boolean hasDigest(GenerationState previousState, String outputPath) {
+        return manifest == null || previousState.getDigest(outputPath) != null;
+    }
 
-        value = mojoDescriptor.getExecuteGoal();
-        if (StringUtils.isNotEmpty(value)) {
-            w.print("* ");
-            w.println(format("pluginasciidoc.mojodescriptor.executeGoal", value));
+    /**
+     * Adds the digest of a document which is up to date to the manifest of a reproducible generation.
+     *
+     * @param previousState not null
+     * @param outputPath not null
+     */
+    private void keepDigest(GenerationState previousState, String outputPath) {
+        ContentManifest currentManifest = manifest;
+        if (currentManifest != null) {
+            currentManifest.add(outputPath, previousState.getDigest(outputPath));
         }
+    }
 
-        value = mojoDescriptor.getExecuteLifecycle();
-        if (StringUtils.isNotEmpty(value)) {
-            w.print("* ");
-            w.println(format("pluginasciidoc.mojodescriptor.executeLifecycle", value));
+    /**
+     * Writes the document describing the parameters shared by several goals for every locale, or deletes it when
+     * no parameter is shared.
+     *
+     * @param common not null
+     * @param sink not null
+     * @throws IOException if any
+     */
+    private void writeCommonParameters(CommonParameters common, OutputSink sink) throws IOException {
+        boolean empty = common.isEmpty();
+        Escaper escaper = new Escaper(fragmentCache);
+        StringBuilder buffer = new StringBuilder(OUTPUT_BUFFER_SIZE);
+        for (LocalizedMessages messages : localizations) {
+            String outputPath = getGoalPath(messages, CommonParameters.FILENAME);
+            if (empty) {
+                sink.delete(outputPath);
+                continue;
+            }
+            long start = System.nanoTime();
+            buffer.setLength(0);
+            common.render(messages, escaper, buffer);
+            if (reproducible) {
+                toLineFeeds(buffer);
+            }
+            ByteBuffer content = fileWriter.encode(buffer);
+            ContentManifest currentManifest = manifest;
+            if (currentManifest != null) {
+                currentManifest.add(outputPath, content);
+            }
+            long rendered = System.nanoTime();
+            boolean written = sink.write(outputPath, content);
+            recordMetrics(outputPath, 0, rendered - start, System.nanoTime() - rendered, content.remaining(),
+                    !written);
         }
+    }
 
-        if (mojoDescriptor.isOnlineRequired()) {
-            w.print("* ");
-            w.println(getString("pluginasciidoc.mojodescriptor.onlineRequired"));
-        }
+    /**
+     * @param messages not null
+     * @return the path of the document describing the shared parameters, relative to the goal documents.
+     */
+    private String getCommonDocument(LocalizedMessages messages) {
+        return getCommonDocument(currentCommonParameters, messages);
+    }
 
-        if (!mojoDescriptor.isInheritedByDefault()) {
-            w.print("* ");
-            w.println(getString("pluginasciidoc.mojodescriptor.inheritedByDefault"));
+    /**
+     * @param common the shared parameters, null if there is no shared document
+     * @param messages not null
+     * @return the path from a goal document to the shared document, null if there is no shared document.
+     */
+    private String getCommonDocument(CommonParameters common, LocalizedMessages messages) {
+        if (common == null) {
+            return null;
+        }
+        String rootPath = common.getRootPath();
+        if (rootPath.isEmpty()) {
+            return CommonParameters.FILENAME;
         }
-        w.println();
+        if (localeDirectories) {
+            return "../" + rootPath + messages.getLocale() + "/" + CommonParameters.FILENAME;
+        }
+        return rootPath + CommonParameters.FILENAME;
     }
 
     /**
-     * @param mojoDescriptor not null
-     * @param w not null
+     * Streams every goal into a single document, after a header and an index of the goals.
+     *
+     * @param pluginDescriptor not null
+     * @param models not null
+     * @param sink not null
+     * @throws IOException if any
      */
-    private void writeGoalParameterTable(MojoDescriptor mojoDescriptor, PrintWriter w) {
-        @SuppressWarnings("unchecked")
-        List<Parameter> parameterList = mojoDescriptor.getParameters();
-
-        // remove components and read-only parameters
-        List<Parameter> list = filterParameters(parameterList);
-
-        if (list != null && list.size() > 0) {
-            writeParameterSummary(mojoDescriptor, list, w);
-
-            writeParameterDetails(mojoDescriptor, list, w);
-        } else {
-            writeSection(w, getString("pluginasciidoc.mojodescriptor.parameters"));
-            w.println(getString("pluginasciidoc.mojodescriptor.noParameter"));
-            w.println();
+    private void writeAggregated(final PluginDescriptor pluginDescriptor, final List<MojoModel> models,
+            OutputSink sink) throws IOException {
+        int parameters = 0;
+        for (MojoModel model : models) {
+            parameters += model.getParameters().size();
+        }
+        final AdocTemplate mojoTemplate = getTemplate();
+        final Escaper escaper = new Escaper(fragmentCache);
+        for (final LocalizedMessages messages : localizations) {
+            streamDocument(sink, getOutputPath(messages, null), getGoalPath(messages, AGGREGATED_FILENAME), parameters,
+                    new DocumentRenderer() {
+                        @Override
+                        public void render(Writer out) throws IOException {
+                            AdocTemplate.getDefaultPlugin().render(new PluginScope(pluginDescriptor, models, messages,
+                                    escaper), messages, out);
+                            for (MojoModel model : models) {
+                                mojoTemplate.render(new MojoScope(model, messages, true, currentCommonParameters,
+                                        getCommonDocument(messages)), messages, out);
+                            }
+                        }
+                    });
         }
     }
 
     /**
-     * Filter parameters to only retain those which must be documented, ie not components nor readonly.
+     * Renders a document directly into the sink, so that the memory it needs doesn't depend on its size.
      *
-     * @param parameterList not null
-     * @return the parameters list without components.
+     * @param sink not null
+     * @param outputPath the path of the document in the sink, not null
+     * @param goalPath identifies the document in the metrics, not null
+     * @param parameters the number of documented parameters
+     * @param renderer not null
+     * @throws IOException if any
      */
-    private List<Parameter> filterParameters(List<Parameter> parameterList) {
-        List<Parameter> filtered = new ArrayList<Parameter>();
+    private void streamDocument(OutputSink sink, String outputPath, String goalPath, int parameters,
+            DocumentRenderer renderer) throws IOException {
+        ContentManifest currentManifest = manifest;
+        OutputSink.Entry output = sink.open(outputPath);
+        try {
+            long start = System.nanoTime();
+            ContentManifest.DigestWriter digestWriter = currentManifest == null ? null
+                    : new ContentManifest.DigestWriter(output.getWriter());
+            CountingWriter writer = new CountingWriter(digestWriter == null ? output.getWriter() : digestWriter);
+            renderer.render(reproducible ? new LineFeedWriter(writer) : writer);
+            if (digestWriter != null) {
+                currentManifest.add(outputPath, digestWriter.digest());
+            }
+            long rendered = System.nanoTime();
+            boolean written = output.commit();
+            recordMetrics(goalPath, parameters, rendered - start, System.nanoTime() - rendered, writer.getBytes(),
+                    !written);
+        } finally {
+            output.discard();
+        }
+    }
 
-        if (parameterList != null) {
-            for (Parameter parameter : parameterList) {
-                if (parameter.isEditable()) {
-                    String expression = parameter.getExpression();
+    /**
+     * Renders the goals, concurrently if more than one thread has been configured. Each goal is written to its
+     * own file so the output doesn't depend on the order in which the goals are rendered.
+     *
+     * @param models not null
+     * @param sink not null
+     * @throws IOException if any goal fails to be written.
+     */
+    private void processMojoModels(List<MojoModel> models, OutputSink sink) throws IOException {
+        WritePipeline pipeline = writeQueueSize > 0 && !models.isEmpty() && !isOrdered()
+                ? new WritePipeline(sink, writeQueueSize) : null;
+        try {
+            renderMojoModels(models, sink, pipeline);
+            if (pipeline != null) {
+                pipeline.await();
+            }
+        } finally {
+            if (pipeline != null) {
+                pipeline.close();
+            }
+        }
+    }
 
-                    if (expression == null || !expression.startsWith("${component.")) {
-                        filtered.add(parameter);
+    /**
+     * @param models not null
+     * @param sink not null
+     * @param pipeline the write stage, null to write each document from the thread which rendered it
+     * @throws IOException if any goal fails to be rendered or written.
+     */
+    private void renderMojoModels(List<MojoModel> models, final OutputSink sink, final WritePipeline pipeline)
+            throws IOException {
+        int poolSize = isOrdered() ? 1 : Math.min(threads, models.size());
+        // the documents of the directory are streamed concurrently, a custom sink only streams one at a time
+        final boolean streamed = pipeline == null && (outputSink == null || poolSize <= 1);
+        if (poolSize <= 1) {
+            for (MojoModel model : models) {
+                processMojoModel(model, sink, pipeline, streamed);
+            }
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(poolSize);
+        try {
+            List<Future<Void>> results = new ArrayList<Future<Void>>(models.size());
+            for (final MojoModel model : models) {
+                results.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws IOException {
+                        processMojoModel(model, sink, pipeline, streamed);
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> result : results) {
+                try {
+                    result.get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof IOException) {
+                        throw (IOException) cause;
                     }
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    if (cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+                    throw new IOException(cause);
                 }
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while generating the goals documentation");
+        } finally {
+            executor.shutdownNow();
         }
+    }
 
-        return filtered;
+    /**
+     * @return <code>true</code> if the documents must be written in goal order, the order of the entries of a sink
+     * like an archive being part of its content.
+     */
+    private boolean isOrdered() {
+        return outputSink != null;
     }
 
     /**
+     * Renders the goal for every locale, from a single locale independent model.
+     *
      * @param mojoDescriptor not null
-     * @param parameterList not null
-     * @param w not null
+     * @param destinationDirectory not null
+     * @throws IOException if any
      */
-    private void writeParameterDetails(MojoDescriptor mojoDescriptor, List<Parameter> parameterList, PrintWriter w) {
-        writeSection(w, getString("pluginasciidoc.mojodescriptor.parameter.details"));
-
-        for (Iterator<Parameter> parameters = parameterList.iterator(); parameters.hasNext();) {
-            Parameter parameter = parameters.next();
-
-            w.println(format("pluginasciidoc.mojodescriptor.parameter.name_internal", parameter.getName()));
-
-            if (StringUtils.isNotEmpty(parameter.getDeprecated())) {
-                w.println(format("pluginasciidoc.mojodescriptor.parameter.deprecated",
-                        makeHtmlValid(parameter.getDeprecated())));
-            }
+    protected void processMojoDescriptor(MojoDescriptor mojoDescriptor, File destinationDirectory)
+            throws IOException {
+        OutputSink sink = outputSink == null ? new DirectorySink(destinationDirectory, fileWriter) : outputSink;
+        processMojoModel(new MojoModel(mojoDescriptor, fragmentCache, reproducible), sink, null, true);
+    }
 
-            if (StringUtils.isNotEmpty(parameter.getDescription())) {
-                w.println(makeHtmlValid(parameter.getDescription()));
-            } else {
-                w.println(getString("pluginasciidoc.nodescription"));
+    /**
+     * Renders the goal for every locale, the locale independent model being shared with the parameter index.
+     * Streamed documents are rendered directly into the sink, the others are buffered so that they can be handed
+     * to the write stage or written concurrently to a sink which can't stream several documents at once.
+     *
+     * @param model not null
+     * @param sink not null
+     * @param pipeline the write stage, null to write the documents from the current thread
+     * @param streamed <code>true</code> to render into the sink, <code>pipeline</code> being null.
+     * @throws IOException if any
+     */
+    private void processMojoModel(final MojoModel model, OutputSink sink, WritePipeline pipeline, boolean streamed)
+            throws IOException {
+        MojoDescriptor mojoDescriptor = model.getMojoDescriptor();
+        final int parameters = model.getParameters().size();
+        final AdocTemplate mojoTemplate = getTemplate();
+        StringBuilder buffer = streamed ? null : new StringBuilder(OUTPUT_BUFFER_SIZE);
+        for (final LocalizedMessages messages : localizations) {
+            final String goalPath = getGoalPath(messages, mojoDescriptor.getGoal());
+            String outputPath = getOutputPath(messages, mojoDescriptor.getGoal());
+            if (streamed) {
+                streamDocument(sink, outputPath, goalPath, parameters, new DocumentRenderer() {
+                    @Override
+                    public void render(Writer out) throws IOException {
+                        mojoTemplate.render(new MojoScope(model, messages, false, currentCommonParameters,
+                                getCommonDocument(messages)), messages, out);
+                    }
+                });
+                continue;
             }
-
-            w.println();
-            writeDetail(getString("pluginasciidoc.mojodescriptor.parameter.type"), parameter.getType(), w);
-
-            if (StringUtils.isNotEmpty(parameter.getSince())) {
-                writeDetail(getString("pluginasciidoc.mojodescriptor.parameter.since"), parameter.getSince(), w);
-            } else {
-                if (StringUtils.isNotEmpty(mojoDescriptor.getSince())) {
-                    writeDetail(getString("pluginasciidoc.mojodescriptor.parameter.since"), mojoDescriptor.getSince(),
-                            w);
-                }
+            long start = System.nanoTime();
+            buffer.setLength(0);
+            mojoTemplate.render(new MojoScope(model, messages, false, currentCommonParameters,
+                    getCommonDocument(messages)), messages, buffer);
+            if (reproducible) {
+                toLineFeeds(buffer);
             }
-
-            if (parameter.isRequired()) {
-                writeDetail(getString("pluginasciidoc.mojodescriptor.parameter.required"), getString("pluginasciidoc.yes"),
-                        w);
-            } else {
-                writeDetail(getString("pluginasciidoc.mojodescriptor.parameter.required"), getString("pluginasciidoc.no"),
-                        w);
+            final ByteBuffer content = fileWriter.encode(buffer);
+            final long renderNanos = System.nanoTime() - start;
+            ContentManifest currentManifest = manifest;
+            if (currentManifest != null) {
+                currentManifest.add(outputPath, content);
             }
-
-            String expression = parameter.getExpression();
-            String property = getPropertyFromExpression(expression);
-            if (property == null) {
-                writeDetail(getString("pluginasciidoc.mojodescriptor.parameter.expression"), expression, w);
+            if (pipeline == null) {
+                long rendered = System.nanoTime();
+                boolean written = sink.write(outputPath, content);
+                recordMetrics(goalPath, parameters, renderNanos, System.nanoTime() - rendered, content.remaining(),
+                        !written);
             } else {
-                writeDetail(getString("pluginasciidoc.mojodescriptor.parameter.property"), property, w);
-            }
-
-            writeDetail(getString("pluginasciidoc.mojodescriptor.parameter.default"),
-                    escapeXml(parameter.getDefaultValue()), w);
-
-            writeDetail(getString("pluginasciidoc.mojodescriptor.parameter.alias"), escapeXml(parameter.getAlias()),
-                    w);
-
-            w.println();
-
-            if (parameters.hasNext()) {
-                w.println();
+                pipeline.submit(outputPath, content, new WritePipeline.Listener() {
+                    @Override
+                    public void written(boolean written, long writeNanos) {
+                        recordMetrics(goalPath, parameters, renderNanos, writeNanos, content.remaining(), !written);
+                    }
+                });
             }
-
-            w.println();
         }
-        w.println();
     }
 
-    private String getPropertyFromExpression(String expression) {
-        if (StringUtils.isNotEmpty(expression) && expression.startsWith("${") && expression.endsWith("}")
-                && !expression.substring(2).contains("${")) {
-            // expression="${xxx}" -> property="xxx"
-            return expression.substring(2, expression.length() - 1);
+    private void recordMetrics(String goal, int parameters, long renderNanos, long writeNanos, long bytes,
+            boolean skipped) {
+        GenerationMetrics currentMetrics = metrics;
+        if (currentMetrics != null) {
+            currentMetrics.record(goal, parameters, renderNanos, writeNanos, bytes, skipped);
         }
-        // no property can be extracted
-        return null;
     }
 
     /**
-     * @param param not null
-     * @param value could be null
-     * @param w not null
+     * @return the compiled template, parsed once and reused for every goal.
+     * @throws IOException if the template can't be read or is invalid.
      */
-    private void writeDetail(String param, String value, PrintWriter w) {
-        if (StringUtils.isNotEmpty(value)) {
-            w.print("* ");
-            w.println(format("pluginasciidoc.detail", new String[]{param, value}));
+    private synchronized AdocTemplate getTemplate() throws IOException {
+        if (template == null) {
+            template = templateFile == null ? AdocTemplate.getDefault() : AdocTemplate.compile(templateFile);
         }
+        return template;
     }
 
     /**
-     * @param mojoDescriptor not null
-     * @param parameterList not null
-     * @param w not null
+     * @return the name of the template rendering the goals, for the error messages.
      */
-    private void writeParameterSummary(MojoDescriptor mojoDescriptor, List<Parameter> parameterList, PrintWriter w) {
-        List<Parameter> requiredParams = getParametersByRequired(true, parameterList);
-        if (requiredParams.size() > 0) {
-            writeParameterList(mojoDescriptor, getString("pluginasciidoc.mojodescriptor.requiredParameters"),
-                    requiredParams, w);
-        }
+    private String getTemplateName() {
+        File file = templateFile;
+        return file == null ? AdocTemplate.DEFAULT_TEMPLATE : file.getPath();
+    }
 
-        List<Parameter> optionalParams = getParametersByRequired(false, parameterList);
-        if (optionalParams.size() > 0) {
-            writeParameterList(mojoDescriptor, getString("pluginasciidoc.mojodescriptor.optionalParameters"),
-                    optionalParams, w);
+    /**
+     * @param e a message used by a template is missing from the resource bundle, not null
+     * @param template the name of the template, not null
+     * @return the exception reporting the missing message.
+     */
+    private static GeneratorException toGeneratorException(MissingResourceException e, String template) {
+        return new GeneratorException("The message " + e.getKey() + " used by the template " + template
+                + " is missing from the " + LocalizedMessages.BUNDLE_NAME + " resource bundle", e);
+    }
+
+    /**
+     * @return identifies the template, its version and the output mode for the incremental generation.
+     */
+    private String getTemplateId() {
+        String templateId = templateFile == null ? AdocTemplate.DEFAULT_TEMPLATE
+                : templateFile.getAbsolutePath() + ":" + templateFile.length() + ":" + templateFile.lastModified();
+        return reproducible ? templateId + ":reproducible" : templateId;
+    }
+
+    /**
+     * @param model not null
+     * @param messages not null
+     * @return identifies the template and the links of the goal to the shared parameters for the incremental
+     * generation.
+     */
+    private String getTemplateId(MojoModel model, LocalizedMessages messages) {
+        return getTemplateId(currentCommonParameters, model, messages);
+    }
+
+    /**
+     * @param common the shared parameters, null if there is no shared document
+     * @param model not null
+     * @param messages not null
+     * @return identifies the template and the links of the goal to the shared parameters.
+     */
+    private String getTemplateId(CommonParameters common, MojoModel model, LocalizedMessages messages) {
+        if (common == null) {
+            return getTemplateId();
         }
+        return getTemplateId() + ":" + getCommonDocument(common, messages) + ":" + common.getAnchors(model);
     }
 
     /**
-     * @param mojoDescriptor not null
-     * @param title not null
-     * @param parameterList not null
-     * @param w not null
-     */
-    private void writeParameterList(MojoDescriptor mojoDescriptor, String title, List<Parameter> parameterList,
-            PrintWriter w) {
-        w.print(".");
-        w.println(title);
-        w.println("[%autowidth.stretch]");
-        w.println("|====");
-
-        w.print("|");
-        w.print(getString("pluginasciidoc.mojodescriptor.parameter.name"));
-        w.print("|");
-        w.print(getString("pluginasciidoc.mojodescriptor.parameter.type"));
-        w.print("|");
-        w.print(getString("pluginasciidoc.mojodescriptor.parameter.since"));
-        w.print("|");
-        w.println(getString("pluginasciidoc.mojodescriptor.parameter.description"));
-
-        for (Parameter parameter : parameterList) {
-
-            w.print("|");
-            w.print(format("pluginasciidoc.mojodescriptor.parameter.name_link", parameter.getName()));
-
-            //type
-            w.print("|");
-            int index = parameter.getType().lastIndexOf(".");
-            w.print("`" + parameter.getType().substring(index + 1) + "`");
-
-            // since
-            w.print("|");
-            if (StringUtils.isNotEmpty(parameter.getSince())) {
-                w.print("`" + parameter.getSince() + "`");
+     * Replaces the <code>\r\n</code> and <code>\r</code> line endings with <code>\n</code>.
+     *
+     * @param buffer not null
+     */
+    static void toLineFeeds(StringBuilder buffer) {
+        int index = buffer.indexOf("\r");
+        if (index < 0) {
+            return;
+        }
+        int length = index;
+        boolean skipLineFeed = false;
+        for (int i = index; i < buffer.length(); i++) {
+            char c = buffer.charAt(i);
+            if (c == '\r') {
+                buffer.setCharAt(length++, '\n');
+                skipLineFeed = true;
             } else {
-                if (StringUtils.isNotEmpty(mojoDescriptor.getSince())) {
-                    w.print("`" + mojoDescriptor.getSince() + "`");
-                } else {
-                    w.print("`-`");
+                if (c != '\n' || !skipLineFeed) {
+                    buffer.setCharAt(length++, c);
                 }
+                skipLineFeed = false;
             }
+        }
+        buffer.setLength(length);
+    }
 
-            // description
-            w.print("|");
-            String description;
-            if (StringUtils.isNotEmpty(parameter.getDeprecated())) {
-                description = format("pluginasciidoc.mojodescriptor.parameter.deprecated",
-                        makeHtmlValid(parameter.getDeprecated()));
-            } else if (StringUtils.isNotEmpty(parameter.getDescription())) {
-                description = makeHtmlValid(parameter.getDescription());
-            } else {
-                description = getString("pluginasciidoc.nodescription");
-            }
-            w.println(description + " +");
-
-            if (StringUtils.isNotEmpty(parameter.getDefaultValue())) {
-                w.print(format("pluginasciidoc.mojodescriptor.parameter.defaultValue",
-                        escapeXml(parameter.getDefaultValue())));
-                w.println(" +");
-            }
-
-            String property = getPropertyFromExpression(parameter.getExpression());
-            if (property != null) {
-                w.print(format("pluginasciidoc.mojodescriptor.parameter.property.description", property));
-                w.println(" +");
+    /**
+     * Deletes the outputs of the goals documented by the previous generation which no longer exist.
+     *
+     * @param previousState not null
+     * @param currentState not null
+     * @param sink not null
+     * @throws IOException if any
+     */
+    private void deleteRemovedGoals(GenerationState previousState, GenerationState currentState, OutputSink sink)
+            throws IOException {
+        for (String path : previousState.getGoals()) {
+            if (currentState.getFingerprint(path) == null) {
+                sink.delete(getMojoFilename(path, "adoc"));
             }
+        }
+    }
 
-            if (StringUtils.isNotEmpty(parameter.getAlias())) {
-                w.print(format("pluginasciidoc.mojodescriptor.parameter.alias.description",
-                        escapeXml(parameter.getAlias())));
+    /**
+     * Deletes the documents of the other output mode: the aggregated document of each locale directory, or the
+     * document of each goal.
+     *
+     * @param goalPaths the goals prefixed by their locale directory, not null
+     * @param sink not null
+     * @throws IOException if any
+     */
+    private void deleteOtherMode(Set<String> goalPaths, OutputSink sink) throws IOException {
+        for (String path : goalPaths) {
+            if (aggregated) {
+                sink.delete(getMojoFilename(path, "adoc"));
+            } else {
+                sink.delete(path.substring(0, path.lastIndexOf('/') + 1) + AGGREGATED_FILENAME);
             }
-            w.println();
         }
-        w.println();
-        w.println("|====");
-        w.println();
     }
 
-    private String makeHtmlValid(String description) {
-        String result = GeneratorUtils.makeHtmlValid(description);
-        result = result.replaceAll("<code>", "`");
-        result = result.replaceAll("</code>", "`");
-        result = result.replaceAll("<br/>", " +");
-        result = result.replaceAll("<br />", " +");
-        return result;
+    /**
+     * @param previousState null if the generation isn't incremental
+     * @param currentState not null
+     * @return <code>true</code> if the same goals are documented by the previous and the current generation.
+     */
+    private boolean isSameGoals(GenerationState previousState, GenerationState currentState) {
+        return previousState != null && previousState.getGoals().equals(currentState.getGoals());
     }
 
     /**
-     * @param required      <code>true</code> for required parameters, <code>false</code> otherwise.
-     * @param parameterList not null
-     * @return list of parameters depending the value of <code>required</code>
+     * @param messages not null
+     * @param goal not null
+     * @return the goal prefixed by its locale directory, identifying its documentation in the generation state.
      */
-    private List<Parameter> getParametersByRequired(boolean required, List<Parameter> parameterList) {
-        List<Parameter> list = new ArrayList<Parameter>();
-
-        for (Parameter parameter : parameterList) {
-            if (parameter.isRequired() == required) {
-                list.add(parameter);
-            }
+    private String getGoalPath(LocalizedMessages messages, String goal) {
+        if (localeDirectories) {
+            return messages.getLocale() + "/" + goal;
         }
-
-        return list;
+        return goal;
     }
 
     /**
-     * Gets the resource bundle for the <code>locale</code> instance variable.
-     *
-     * @return The resource bundle for the <code>locale</code> instance variable.
+     * @param messages not null
+     * @param goal not null
+     * @return the path of the document of the goal in the output sink.
      */
-    private ResourceBundle getBundle() {
-        return ResourceBundle.getBundle("pluginasciidoc", locale, getClass().getClassLoader());
+    private String getOutputPath(LocalizedMessages messages, String goal) {
+        if (aggregated) {
+            return getGoalPath(messages, AGGREGATED_FILENAME);
+        }
+        return getMojoFilename(getGoalPath(messages, goal), "adoc");
     }
 
     /**
-     * @param key not null
-     * @return Localized, text identified by <code>key</code>.
-     * @see #getBundle()
+     * Writes a document to the writer of the sink.
      */
-    private String getString(String key) {
-        return getBundle().getString(key);
+    private interface DocumentRenderer {
+
+        /**
+         * @param out not null
+         * @throws IOException if any
+         */
+        void render(Writer out) throws IOException;
     }
 
     /**
-     * Convenience method.
-     *
-     * @param key not null
-     * @param arg1 not null
-     * @return Localized, formatted text identified by <code>key</code>.
-     * @see #format(String, Object[])
+     * Replaces the <code>\r\n</code> and <code>\r</code> line endings of the written characters with
+     * <code>\n</code>.
      */
-    private String format(String key, Object arg1) {
-        return format(key, new Object[]{arg1});
+    private static final class LineFeedWriter extends FilterWriter {
+
+        /**
+         * Whether the last written character is a <code>\r</code>, already written as a <code>\n</code>.
+         */
+        private boolean skipLineFeed;
+
+        private LineFeedWriter(Writer out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            if (skipLineFeed) {
+                skipLineFeed = false;
+                if (c == '\n') {
+                    return;
+                }
+            }
+            if (c == '\r') {
+                out.write('\n');
+                skipLineFeed = true;
+            } else {
+                out.write(c);
+            }
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            writeLineFeeds(CharBuffer.wrap(cbuf), off, len);
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            writeLineFeeds(str, off, len);
+        }
+
+        private void writeLineFeeds(CharSequence text, int off, int len) throws IOException {
+            int start = off;
+            int end = off + len;
+            for (int i = off; i < end; i++) {
+                char c = text.charAt(i);
+                if (skipLineFeed) {
+                    skipLineFeed = false;
+                    if (c == '\n') {
+                        start = i + 1;
+                        continue;
+                    }
+                }
+                if (c == '\r') {
+                    out.append(text, start, i).write('\n');
+                    start = i + 1;
+                    skipLineFeed = true;
+                }
+            }
+            out.append(text, start, end);
+        }
     }
 
     /**
-     * Looks up the value for <code>key</code> in the <code>ResourceBundle</code>,
-     * then formats that value for the specified <code>Locale</code> using <code>args</code>.
-     *
-     * @param key not null
-     * @param args not null
-     * @return Localized, formatted text identified by <code>key</code>.
+     * Counts the bytes of the UTF-8 encoding of the written characters.
      */
-    private String format(String key, Object[] args) {
-        String pattern = getString(key);
-        // we don't need quoting so spare us the confusion in the resource bundle to double them up in some keys
-        pattern = StringUtils.replace(pattern, "'", "''");
+    private static final class CountingWriter extends FilterWriter {
 
-        MessageFormat messageFormat = new MessageFormat("");
-        messageFormat.setLocale(locale);
-        messageFormat.applyPattern(pattern);
+        private long bytes;
 
-        return messageFormat.format(args);
+        private CountingWriter(Writer out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            out.write(c);
+            count((char) c);
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            out.write(cbuf, off, len);
+            for (int i = off; i < off + len; i++) {
+                count(cbuf[i]);
+            }
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            out.write(str, off, len);
+            for (int i = off; i < off + len; i++) {
+                count(str.charAt(i));
+            }
+        }
+
+        private void count(char c) {
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isSurrogate(c)) {
+                // a surrogate pair is encoded in 4 bytes
+                bytes += 2;
+            } else {
+                bytes += 3;
+            }
+        }
+
+        long getBytes() {
+            return bytes;
+        }
     }
 
     /**
-     * @param text the string to escape
-     * @return A string escaped with XML entities
+     * A fragment rendered on demand, with the descriptor instance it was rendered from.
      */
-    private String escapeXml(String text) {
-        if (text != null) {
-            text = text.replaceAll("&", "&amp;");
-            text = text.replaceAll("<", "&lt;");
-            text = text.replaceAll(">", "&gt;");
-            text = text.replaceAll("\"", "&quot;");
-            text = text.replaceAll("\'", "&apos;");
+    private static final class RenderedFragment {
+
+        private final MojoDescriptor mojoDescriptor;
+
+        private final String fragment;
+
+        private RenderedFragment(MojoDescriptor mojoDescriptor, String fragment) {
+            this.mojoDescriptor = mojoDescriptor;
+            this.fragment = fragment;
         }
-        return text;
+    }
+
+    /**
+     * @param goal not null, possibly prefixed by its locale directory
+     * @param ext not null
+     * @return the output file name
+     */
+    private String getMojoFilename(String goal, String ext) {
+        return goal + "-mojo." + ext;
     }
 }
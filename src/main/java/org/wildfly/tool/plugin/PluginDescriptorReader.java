@@ -0,0 +1,326 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.tool.plugin;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.apache.maven.plugin.descriptor.DuplicateMojoDescriptorException;
+import org.apache.maven.plugin.descriptor.DuplicateParameterException;
+import org.apache.maven.plugin.descriptor.MojoDescriptor;
+import org.apache.maven.plugin.descriptor.Parameter;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
+import org.apache.maven.tools.plugin.ExtendedMojoDescriptor;
+import org.codehaus.plexus.util.IOUtil;
+
+/**
+ * Streaming reader of the <code>META-INF/maven/plugin.xml</code> descriptor generated by the
+ * <code>maven-plugin-plugin</code>. Only what the documentation needs is read: the plugin coordinates, the goals and
+ * their parameters, with the expression and the default value of each parameter taken from the configuration of
+ * the goal. Unlike the <code>PluginDescriptorBuilder</code>, the descriptor isn't loaded in memory first, and the
+ * requirements and the dependencies are skipped.
+ *
+ * @author Emmanuel Hugonnet (c) 2018 Red Hat, inc.
+ */
+final class PluginDescriptorReader {
+
+    /**
+     * Configured once, creating readers is thread safe.
+     */
+    private static final XMLInputFactory FACTORY = createFactory();
+
+    private final XMLStreamReader reader;
+
+    private PluginDescriptorReader(XMLStreamReader reader) {
+        this.reader = reader;
+    }
+
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+        return factory;
+    }
+
+    /**
+     * @param descriptor the <code>plugin.xml</code> file, not null
+     * @return the plugin descriptor.
+     * @throws IOException if the descriptor can't be read or is invalid.
+     */
+    static PluginDescriptor read(Path descriptor) throws IOException {
+        InputStream in = null;
+        try {
+            in = Files.newInputStream(descriptor);
+            return read(in, descriptor.toUri().toString());
+        } finally {
+            IOUtil.close(in);
+        }
+    }
+
+    /**
+     * @param in the content of the <code>plugin.xml</code> descriptor, not closed, not null
+     * @param source identifies the descriptor in the error messages, not null
+     * @return the plugin descriptor.
+     * @throws IOException if the descriptor can't be read or is invalid.
+     */
+    static PluginDescriptor read(InputStream in, String source) throws IOException {
+        XMLStreamReader reader = null;
+        try {
+            reader = FACTORY.createXMLStreamReader(source, in);
+            return new PluginDescriptorReader(reader).readPlugin();
+        } catch (XMLStreamException e) {
+            throw new IOException("Could not parse plugin descriptor " + source + ": " + e.getMessage(), e);
+        } catch (DuplicateMojoDescriptorException | DuplicateParameterException e) {
+            throw new IOException("Invalid plugin descriptor " + source + ": " + e.getMessage(), e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException e) {
+                    // the stream is closed by the caller
+                }
+            }
+        }
+    }
+
+    private PluginDescriptor readPlugin() throws XMLStreamException, DuplicateMojoDescriptorException,
+            DuplicateParameterException {
+        reader.nextTag();
+        reader.require(XMLStreamConstants.START_ELEMENT, null, "plugin");
+        PluginDescriptor pluginDescriptor = new PluginDescriptor();
+        while (nextChild()) {
+            switch (reader.getLocalName()) {
+                case "name":
+                    pluginDescriptor.setName(readValue());
+                    break;
+                case "description":
+                    pluginDescriptor.setDescription(readValue());
+                    break;
+                case "groupId":
+                    pluginDescriptor.setGroupId(readValue());
+                    break;
+                case "artifactId":
+                    pluginDescriptor.setArtifactId(readValue());
+                    break;
+                case "version":
+                    pluginDescriptor.setVersion(readValue());
+                    break;
+                case "goalPrefix":
+                    pluginDescriptor.setGoalPrefix(readValue());
+                    break;
+                case "mojos":
+                    while (nextChild()) {
+                        if ("mojo".equals(reader.getLocalName())) {
+                            pluginDescriptor.addMojo(readMojo(pluginDescriptor));
+                        } else {
+                            skip();
+                        }
+                    }
+                    break;
+                default:
+                    skip();
+            }
+        }
+        return pluginDescriptor;
+    }
+
+    private MojoDescriptor readMojo(PluginDescriptor pluginDescriptor) throws XMLStreamException,
+            DuplicateParameterException {
+        ExtendedMojoDescriptor mojoDescriptor = new ExtendedMojoDescriptor();
+        mojoDescriptor.setPluginDescriptor(pluginDescriptor);
+        Map<String, String[]> configuration = new HashMap<String, String[]>();
+        while (nextChild()) {
+            switch (reader.getLocalName()) {
+                case "goal":
+                    mojoDescriptor.setGoal(readValue());
+                    break;
+                case "description":
+                    mojoDescriptor.setDescription(readValue());
+                    break;
+                case "implementation":
+                    mojoDescriptor.setImplementation(readValue());
+                    break;
+                case "language":
+                    mojoDescriptor.setLanguage(readValue());
+                    break;
+                case "since":
+                    mojoDescriptor.setSince(readValue());
+                    break;
+                case "deprecated":
+                    mojoDescriptor.setDeprecated(readValue());
+                    break;
+                case "phase":
+                    mojoDescriptor.setPhase(readValue());
+                    break;
+                case "executePhase":
+                    mojoDescriptor.setExecutePhase(readValue());
+                    break;
+                case "executeGoal":
+                    mojoDescriptor.setExecuteGoal(readValue());
+                    break;
+                case "executeLifecycle":
+                    mojoDescriptor.setExecuteLifecycle(readValue());
+                    break;
+                case "requiresDependencyResolution":
+                    mojoDescriptor.setDependencyResolutionRequired(readValue());
+                    break;
+                case "requiresDependencyCollection":
+                    mojoDescriptor.setDependencyCollectionRequired(readValue());
+                    break;
+                case "requiresDirectInvocation":
+                    mojoDescriptor.setDirectInvocationOnly(readBoolean());
+                    break;
+                case "requiresProject":
+                    mojoDescriptor.setProjectRequired(readBoolean());
+                    break;
+                case "requiresReports":
+                    mojoDescriptor.setRequiresReports(readBoolean());
+                    break;
+                case "requiresOnline":
+                    mojoDescriptor.setOnlineRequired(readBoolean());
+                    break;
+                case "aggregator":
+                    mojoDescriptor.setAggregator(readBoolean());
+                    break;
+                case "inheritedByDefault":
+                    mojoDescriptor.setInheritedByDefault(readBoolean());
+                    break;
+                case "threadSafe":
+                    mojoDescriptor.setThreadSafe(readBoolean());
+                    break;
+                case "parameters":
+                    while (nextChild()) {
+                        if ("parameter".equals(reader.getLocalName())) {
+                            mojoDescriptor.addParameter(readParameter());
+                        } else {
+                            skip();
+                        }
+                    }
+                    break;
+                case "configuration":
+                    while (nextChild()) {
+                        String name = reader.getLocalName();
+                        String defaultValue = reader.getAttributeValue(null, "default-value");
+                        configuration.put(name, new String[] {readValue(), defaultValue});
+                    }
+                    break;
+                default:
+                    skip();
+            }
+        }
+        @SuppressWarnings("unchecked")
+        List<Parameter> parameters = mojoDescriptor.getParameters();
+        if (parameters != null) {
+            for (Parameter parameter : parameters) {
+                String[] value = configuration.get(parameter.getName());
+                if (value != null) {
+                    parameter.setExpression(value[0]);
+                    parameter.setDefaultValue(value[1]);
+                }
+            }
+        }
+        return mojoDescriptor;
+    }
+
+    private Parameter readParameter() throws XMLStreamException {
+        Parameter parameter = new Parameter();
+        while (nextChild()) {
+            switch (reader.getLocalName()) {
+                case "name":
+                    parameter.setName(readValue());
+                    break;
+                case "alias":
+                    parameter.setAlias(readValue());
+                    break;
+                case "type":
+                    parameter.setType(readValue());
+                    break;
+                case "required":
+                    parameter.setRequired(readBoolean());
+                    break;
+                case "editable":
+                    parameter.setEditable(readBoolean());
+                    break;
+                case "description":
+                    parameter.setDescription(readValue());
+                    break;
+                case "deprecated":
+                    parameter.setDeprecated(readValue());
+                    break;
+                case "since":
+                    parameter.setSince(readValue());
+                    break;
+                case "implementation":
+                    parameter.setImplementation(readValue());
+                    break;
+                default:
+                    skip();
+            }
+        }
+        return parameter;
+    }
+
+    /**
+     * Moves to the next child element of the current element.
+     *
+     * @return <code>true</code> if positioned on the start of the next child, <code>false</code> if positioned on
+     * the end of the current element.
+     * @throws XMLStreamException if any
+     */
+    private boolean nextChild() throws XMLStreamException {
+        return reader.nextTag() == XMLStreamConstants.START_ELEMENT;
+    }
+
+    /**
+     * @return the trimmed text of the current element, null if empty.
+     * @throws XMLStreamException if the element has child elements.
+     */
+    private String readValue() throws XMLStreamException {
+        String value = reader.getElementText().trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private boolean readBoolean() throws XMLStreamException {
+        return Boolean.parseBoolean(readValue());
+    }
+
+    /**
+     * Skips the current element and its content.
+     *
+     * @throws XMLStreamException if any
+     */
+    private void skip() throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.tool.plugin;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
+import org.codehaus.plexus.util.StringUtils;
+
+/**
+ * The variables of the header and goal index of the aggregated document.
+ *
+ * @author Emmanuel Hugonnet (c) 2018 Red Hat, inc.
+ */
+final class PluginScope implements TemplateScope {
+
+    private final PluginDescriptor pluginDescriptor;
+
+    private final List<MojoModel> models;
+
+    private final LocalizedMessages messages;
+
+    private final Escaper escaper;
+
+    /**
+     * @param pluginDescriptor not null
+     * @param models the documented goals, not null
+     * @param messages not null
+     * @param escaper not null
+     */
+    PluginScope(PluginDescriptor pluginDescriptor, List<MojoModel> models, LocalizedMessages messages,
+            Escaper escaper) {
+        this.pluginDescriptor = pluginDescriptor;
+        this.models = models;
+        this.messages = messages;
+        this.escaper = escaper;
+    }
+
+    @Override
+    public Object resolve(String name) {
+        switch (name) {
+            case "name":
+                return StringUtils.isNotEmpty(pluginDescriptor.getName()) ? pluginDescriptor.getName()
+                        : pluginDescriptor.getArtifactId();
+            case "description":
+                return StringUtils.isNotEmpty(pluginDescriptor.getDescription())
+                        ? escaper.htmlToAsciidoc(pluginDescriptor.getDescription()) : null;
+            case "coordinates":
+                return pluginDescriptor.getGroupId() + ":" + pluginDescriptor.getArtifactId() + ":"
+                        + pluginDescriptor.getVersion();
+            case "goals":
+                List<TemplateScope> goals = new ArrayList<TemplateScope>(models.size());
+                for (MojoModel model : models) {
+                    goals.add(new MojoScope(model, messages, true));
+                }
+                return goals;
+            default:
+                return UNDEFINED;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.tool.plugin;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Fragments rendered on demand by {@link PluginAdocGenerator}, or converted by a {@link FragmentCache}, the least
+ * recently used fragment being evicted once the cache is full. Instances are thread safe.
+ *
+ * @param <V> the type of the cached fragments
+ * @author Emmanuel Hugonnet (c) 2018 Red Hat, inc.
+ */
+final class RenderCache<V> {
+
+    private final Map<String, V> fragments;
+
+    /**
+     * @param maxSize the maximum number of cached fragments, 0 to cache nothing.
+     */
+    RenderCache(final int maxSize) {
+        this.fragments = new LinkedHashMap<String, V>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * @param key not null
+     * @return the rendered fragment, null if it isn't cached.
+     */
+    synchronized V get(String key) {
+        return fragments.get(key);
+    }
+
+    /**
+     * @param key not null
+     * @param fragment not null
+     */
+    synchronized void put(String key, V fragment) {
+        fragments.put(key, fragment);
+    }
+
+    synchronized void clear() {
+        fragments.clear();
+    }
+
+    synchronized int size() {
+        return fragments.size();
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.tool.plugin;
+
+/**
+ * The variables available to an {@link AdocTemplate} while it renders.
+ * Values are <code>String</code>s, <code>Boolean</code>s, nested scopes or <code>Iterable</code>s of nested scopes.
+ *
+ * @author Emmanuel Hugonnet (c) 2018 Red Hat, inc.
+ */
+interface TemplateScope {
+
+    /**
+     * Returned for the names the scope doesn't define, so that they are looked up in the enclosing scope.
+     */
+    Object UNDEFINED = new Object();
+
+    /**
+     * @param name not null
+     * @return the value of the variable, possibly null, or {@link #UNDEFINED}.
+     */
+    Object resolve(String name);
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.tool.plugin;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The write stage of the generation: the rendered documents are handed over to writer threads so that the
+ * renderers don't wait for the file creation, write and rename, which dominate on slow file systems. At most
+ * <code>capacity</code> documents are queued or being written, a renderer blocks until a document has been written
+ * when the queue is full, bounding the memory held by rendered documents. The writers are virtual threads when the
+ * runtime supports them, platform threads otherwise.
+ *
+ * @author Emmanuel Hugonnet (c) 2018 Red Hat, inc.
+ */
+final class WritePipeline implements Closeable {
+
+    /**
+     * Notified once a document has been written.
+     */
+    interface Listener {
+
+        /**
+         * @param written <code>true</code> if the document has been written, <code>false</code> if it was already
+         * up to date.
+         * @param writeNanos the time spent writing the document
+         */
+        void written(boolean written, long writeNanos);
+    }
+
+    private final OutputSink sink;
+
+    private final int capacity;
+
+    private final Semaphore permits;
+
+    private final ExecutorService writers;
+
+    /**
+     * The first failure of a writer, reported to the renderers.
+     */
+    private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+    /**
+     * @param sink where the documents are written, not null
+     * @param capacity the maximum number of documents queued or being written
+     */
+    WritePipeline(OutputSink sink, int capacity) {
+        this.sink = sink;
+        this.capacity = capacity;
+        this.permits = new Semaphore(capacity);
+        this.writers = newWriters(capacity);
+    }
+
+    /**
+     * @param threads the number of platform threads if virtual threads aren't supported
+     * @return a virtual thread per task executor on Java 21 and later, a fixed thread pool otherwise.
+     */
+    private static ExecutorService newWriters(int threads) {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (NoSuchMethodException e) {
+            // before Java 21
+        } catch (IllegalAccessException e) {
+            // not available
+        } catch (InvocationTargetException e) {
+            // not available
+        }
+        return Executors.newFixedThreadPool(threads);
+    }
+
+    /**
+     * Queues a document, waiting for room in the queue.
+     *
+     * @param path the path of the document in the sink, not null
+     * @param content the encoded document, not null, which mustn't be modified anymore
+     * @param listener notified once the document has been written, not null
+     * @throws IOException if a previous document failed to be written
+     */
+    void submit(final String path, final ByteBuffer content, final Listener listener) throws IOException {
+        checkFailure();
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while writing the goals documentation");
+        }
+        try {
+            writers.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        if (failure.get() == null) {
+                            long start = System.nanoTime();
+                            boolean written = sink.write(path, content);
+                            listener.written(written, System.nanoTime() - start);
+                        }
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                    } finally {
+                        permits.release();
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Waits until every queued document has been written.
+     *
+     * @throws IOException if a document failed to be written
+     */
+    void await() throws IOException {
+        try {
+            permits.acquire(capacity);
+            permits.release(capacity);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while writing the goals documentation");
+        }
+        checkFailure();
+    }
+
+    private void checkFailure() throws IOException {
+        Throwable t = failure.get();
+        if (t == null) {
+            return;
+        }
+        if (t instanceof IOException) {
+            throw (IOException) t;
+        }
+        if (t instanceof RuntimeException) {
+            throw (RuntimeException) t;
+        }
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+        throw new IOException(t);
+    }
+
+    @Override
+    public void close() {
+        writers.shutdownNow();
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.tool.plugin;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.TimeZone;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streams the documents into a zip archive, like a <code>-docs.jar</code>, in a single sequential write without
+ * any intermediate file. The archive is always written from scratch: no document exists before the generation, and
+ * a partially written archive is left as is if the generation fails. The archive is complete once the sink is
+ * closed. The entries are timestamped with the current time unless a fixed time is set, see
+ * {@link #setEntryTime(long)}.
+ *
+ * @author Emmanuel Hugonnet (c) 2018 Red Hat, inc.
+ */
+public final class ZipSink implements OutputSink {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ZipOutputStream zip;
+
+    /**
+     * Whether a streamed document is being written.
+     */
+    private boolean streaming;
+
+    /**
+     * Whether every entry has the same modification time, <code>entryTime</code>.
+     */
+    private boolean fixedTime;
+
+    private long entryTime;
+
+    /**
+     * @param archive the archive to create, replaced if it exists, not null
+     * @throws IOException if any
+     */
+    public ZipSink(File archive) throws IOException {
+        this(Files.newOutputStream(archive.toPath()));
+    }
+
+    /**
+     * @param out where the archive is written, closed with the sink, not null
+     */
+    public ZipSink(OutputStream out) {
+        this.zip = new ZipOutputStream(new BufferedOutputStream(out, BUFFER_SIZE), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Timestamps every entry with the same time, for a reproducible archive. As the zip format stores the local
+     * time, the time is shifted by the offset of the default time zone so that the archive doesn't depend on the
+     * time zone of the build.
+     *
+     * @param time the modification time of the entries in milliseconds since the epoch, -1 to use the current time.
+     */
+    public synchronized void setEntryTime(long time) {
+        this.fixedTime = time >= 0;
+        this.entryTime = time - TimeZone.getDefault().getOffset(time);
+    }
+
+    private ZipEntry newEntry(String path) {
+        ZipEntry entry = new ZipEntry(path);
+        if (fixedTime) {
+            entry.setTime(entryTime);
+        }
+        return entry;
+    }
+
+    @Override
+    public synchronized boolean write(String path, ByteBuffer content) throws IOException {
+        checkNotStreaming();
+        zip.putNextEntry(newEntry(path));
+        ByteBuffer bytes = content.duplicate();
+        if (bytes.hasArray()) {
+            zip.write(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+        } else {
+            byte[] buffer = new byte[Math.min(bytes.remaining(), BUFFER_SIZE)];
+            while (bytes.hasRemaining()) {
+                int length = Math.min(bytes.remaining(), buffer.length);
+                bytes.get(buffer, 0, length);
+                zip.write(buffer, 0, length);
+            }
+        }
+        zip.closeEntry();
+        return true;
+    }
+
+    @Override
+    public synchronized Entry open(String path) throws IOException {
+        checkNotStreaming();
+        zip.putNextEntry(newEntry(path));
+        streaming = true;
+        // the entry is closed, not the archive
+        OutputStream entry = new FilterOutputStream(zip) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(entry, StandardCharsets.UTF_8), BUFFER_SIZE);
+        return new Entry() {
+            @Override
+            public Writer getWriter() {
+                return writer;
+            }
+
+            @Override
+            public boolean commit() throws IOException {
+                writer.close();
+                closeEntry();
+                return true;
+            }
+
+            @Override
+            public void discard() throws IOException {
+                // what has been written to the archive can't be removed, the generation failed anyway
+                closeEntry();
+            }
+        };
+    }
+
+    private synchronized void closeEntry() throws IOException {
+        if (streaming) {
+            streaming = false;
+            zip.closeEntry();
+        }
+    }
+
+    private void checkNotStreaming() {
+        if (streaming) {
+            throw new IllegalStateException("A streamed document is still being written");
+        }
+    }
+
+    @Override
+    public boolean exists(String path) {
+        return false;
+    }
+
+    @Override
+    public void delete(String path) {
+        // the archive only contains the documents of the current generation
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        zip.close();
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.tool.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
+import org.apache.maven.tools.plugin.DefaultPluginToolsRequest;
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.Test;
+
+/**
+ * Checks that the documentation generated for the goals of {@link SyntheticDescriptors#createRegressionPlugin()}
+ * doesn't change. The goals are documented with the <code>en</code>, <code>de</code> and <code>fr</code> bundles and
+ * the parameter index, in the reproducible mode so that the documents have the same <code>\n</code> line endings on
+ * every platform, and compared with the golden documents of <code>src/test/resources/golden</code>. An intended
+ * change of the output is recorded by running the test with <code>-Dgolden.update=true</code>, which rewrites the
+ * golden documents.
+ * <p>
+ * The bytes allocated per document are checked against a generous budget, only meant to catch a change of scale.
+ * The rendering time depends too much on the machine to fail the build, it is measured by the JMH benchmarks.
+ *
+ * @author Emmanuel Hugonnet (c) 2018 Red Hat, inc.
+ */
+public class GoldenDocumentsTest {
+
+    private static final String GOLDEN_DIRECTORY = "src/test/resources/golden";
+
+    /**
+     * Maximum number of kilobytes allocated per document, about ten times what the generator allocates.
+     */
+    private static final long MAX_ALLOCATED_KB = 1024;
+
+    private static final int WARMUP_ITERATIONS = 50;
+
+    private static final int MEASURED_ITERATIONS = 20;
+
+    @Test
+    public void testDocumentsAreUnchanged() throws Exception {
+        Map<String, String> documents = generate(SyntheticDescriptors.createRegressionPlugin(), null);
+        File goldenDirectory = new File(System.getProperty("basedir", "."), GOLDEN_DIRECTORY);
+        if (Boolean.getBoolean("golden.update")) {
+            writeGolden(goldenDirectory, documents);
+            return;
+        }
+        assertEquals("Generated documents", listGolden(goldenDirectory), documents.keySet());
+        for (Map.Entry<String, String> document : documents.entrySet()) {
+            String golden = new String(Files.readAllBytes(new File(goldenDirectory, document.getKey()).toPath()),
+                    StandardCharsets.UTF_8);
+            assertEquals(document.getKey() + " differs from its golden document", golden, document.getValue());
+        }
+    }
+
+    @Test
+    public void testAllocatedBytesPerDocument() throws Exception {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        assumeTrue("The JVM can't measure the allocated bytes", threads instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()
+                && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemoryEnabled());
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        PluginDescriptor pluginDescriptor = SyntheticDescriptors.createRegressionPlugin();
+        int[] rendered = new int[1];
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            generate(pluginDescriptor, rendered);
+        }
+        rendered[0] = 0;
+        // the generator renders and writes the goals from the current thread
+        long before = allocations.getThreadAllocatedBytes(Thread.currentThread().getId());
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            generate(pluginDescriptor, rendered);
+        }
+        long allocatedKb = (allocations.getThreadAllocatedBytes(Thread.currentThread().getId()) - before)
+                / rendered[0] / 1024;
+        assertTrue(allocatedKb + " KB allocated per document, over the budget of " + MAX_ALLOCATED_KB + " KB",
+                allocatedKb <= MAX_ALLOCATED_KB);
+    }
+
+    /**
+     * @param pluginDescriptor not null
+     * @param rendered where the number of rendered documents is added, null to not count them
+     * @return the generated documents by path.
+     * @throws Exception if any
+     */
+    private static Map<String, String> generate(PluginDescriptor pluginDescriptor, int[] rendered)
+            throws Exception {
+        PluginAdocGenerator generator = new PluginAdocGenerator(Arrays.asList(Locale.ENGLISH, Locale.GERMAN,
+                Locale.FRENCH));
+        generator.setReproducible(true);
+        generator.setParameterIndex(true);
+        MemorySink sink = new MemorySink();
+        generator.setOutputSink(sink);
+        // the sink is used instead of the destination directory
+        generator.execute(new File("."), new DefaultPluginToolsRequest(null, pluginDescriptor));
+        if (rendered != null) {
+            rendered[0] += generator.getMetrics().getGoals().size();
+        }
+        Map<String, String> documents = new TreeMap<String, String>();
+        for (String path : sink.getPaths()) {
+            documents.put(path, sink.getContent(path));
+        }
+        return documents;
+    }
+
+    /**
+     * @param goldenDirectory not null
+     * @return the paths of the golden documents, with <code>/</code> separators.
+     * @throws IOException if any
+     */
+    private static Set<String> listGolden(File goldenDirectory) throws IOException {
+        final Set<String> paths = new TreeSet<String>();
+        if (!goldenDirectory.isDirectory()) {
+            return paths;
+        }
+        final Path root = goldenDirectory.toPath();
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                paths.add(root.relativize(file).toString().replace(File.separatorChar, '/'));
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return paths;
+    }
+
+    private static void writeGolden(File goldenDirectory, Map<String, String> documents) throws IOException {
+        if (goldenDirectory.exists()) {
+            FileUtils.deleteDirectory(goldenDirectory);
+        }
+        for (Map.Entry<String, String> document : documents.entrySet()) {
+            File file = new File(goldenDirectory, document.getKey());
+            if (!file.getParentFile().isDirectory() && !file.getParentFile().mkdirs()) {
+                throw new IOException("Could not create directory " + file.getParentFile());
+            }
+            Files.write(file.toPath(), document.getValue().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
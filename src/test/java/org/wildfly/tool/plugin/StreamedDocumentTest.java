@@ -0,0 +1,155 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.tool.plugin;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import org.apache.maven.tools.plugin.DefaultPluginToolsRequest;
+import org.apache.maven.tools.plugin.PluginToolsRequest;
+import org.junit.Test;
+
+/**
+ * Checks that the memory needed to document a goal doesn't grow with the size of its document: goals of 1000 and
+ * 10000 parameters are documented into a sink discarding the documents, and the live heap is measured while the
+ * documents are written. A buffered document would hold its characters and its encoded bytes, so the live heap
+ * would grow by more than the growth of the document.
+ *
+ * @author Emmanuel Hugonnet (c) 2018 Red Hat, inc.
+ */
+public class StreamedDocumentTest {
+
+    /**
+     * Number of written characters between two measures of the live heap.
+     */
+    private static final int SAMPLE_CHARACTERS = 1024 * 1024;
+
+    @Test
+    public void testHeapDoesNotGrowWithTheDocument() throws Exception {
+        DiscardingSink small = generate(1000);
+        DiscardingSink large = generate(10000);
+        long documentGrowth = large.characters - small.characters;
+        long heapGrowth = large.maxLiveHeap - small.maxLiveHeap;
+        assertTrue(String.format("The live heap grew by %d KB for a document larger by %d KB, the document is "
+                + "probably buffered", heapGrowth / 1024, documentGrowth / 1024), heapGrowth < documentGrowth / 2);
+    }
+
+    /**
+     * @param parameters the number of parameters of the goal
+     * @return the sink the goal has been documented into.
+     * @throws Exception if any
+     */
+    private static DiscardingSink generate(int parameters) throws Exception {
+        PluginToolsRequest request = new DefaultPluginToolsRequest(null,
+                SyntheticDescriptors.createPlugin(1, parameters));
+        DiscardingSink sink = new DiscardingSink();
+        PluginAdocGenerator generator = new PluginAdocGenerator();
+        generator.setOutputSink(sink);
+        long baseline = getLiveHeap();
+        // the sink is used instead of the destination directory
+        generator.execute(new File("."), request);
+        sink.maxLiveHeap -= baseline;
+        return sink;
+    }
+
+    /**
+     * @return the heap used once the garbage has been collected.
+     */
+    private static long getLiveHeap() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Discards the documents, measuring the live heap while they are written.
+     */
+    private static final class DiscardingSink implements OutputSink {
+
+        private long characters;
+
+        private long maxLiveHeap;
+
+        private void sample() {
+            maxLiveHeap = Math.max(maxLiveHeap, getLiveHeap());
+        }
+
+        @Override
+        public boolean write(String path, ByteBuffer content) {
+            // the whole document is in memory
+            characters += content.remaining();
+            sample();
+            return true;
+        }
+
+        @Override
+        public Entry open(String path) {
+            final Writer writer = new Writer() {
+                private long sampled;
+
+                @Override
+                public void write(char[] cbuf, int off, int len) {
+                    characters += len;
+                    if (characters - sampled >= SAMPLE_CHARACTERS) {
+                        sampled = characters;
+                        sample();
+                    }
+                }
+
+                @Override
+                public void flush() {
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+            return new Entry() {
+                @Override
+                public Writer getWriter() {
+                    return writer;
+                }
+
+                @Override
+                public boolean commit() {
+                    sample();
+                    return true;
+                }
+
+                @Override
+                public void discard() {
+                }
+            };
+        }
+
+        @Override
+        public boolean exists(String path) {
+            return false;
+        }
+
+        @Override
+        public void delete(String path) {
+        }
+
+        @Override
+        public void close() throws IOException {
+        }
+    }
+}
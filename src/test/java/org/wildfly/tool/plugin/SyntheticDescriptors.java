@@ -0,0 +1,208 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.tool.plugin;
+
+import org.apache.maven.plugin.descriptor.DuplicateParameterException;
+import org.apache.maven.plugin.descriptor.MojoDescriptor;
+import org.apache.maven.plugin.descriptor.Parameter;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
+import org.apache.maven.tools.plugin.ExtendedMojoDescriptor;
+
+/**
+ * Builds synthetic plugin descriptors for the tests and the benchmarks.
+ *
+ * @author Emmanuel Hugonnet (c) 2018 Red Hat, inc.
+ */
+final class SyntheticDescriptors {
+
+    /**
+     * A javadoc description typical of the WildFly plugins, with HTML markup.
+     */
+    static final String LONG_HTML_DESCRIPTION = "The <code>jboss-home</code> of the server to provision, "
+            + "the directory is created if it doesn't exist.<br/>"
+            + "<p>When the server is <b>already running</b> the deployment is redeployed, "
+            + "see {@link org.wildfly.plugin.deployment.DeployMojo} and <a href=\"https://docs.wildfly.org\">the "
+            + "documentation</a> for more details.</p>"
+            + "<ul><li>first &amp; foremost</li><li>second <code>&lt;value&gt;</code></li></ul>"
+            + "<pre>&lt;configuration&gt;\n  &lt;skip&gt;true&lt;/skip&gt;\n&lt;/configuration&gt;</pre>";
+
+    private SyntheticDescriptors() {
+    }
+
+    /**
+     * @param goals the number of goals
+     * @param parameters the number of parameters of each goal
+     * @return a plugin descriptor.
+     * @throws Exception if any
+     */
+    static PluginDescriptor createPlugin(int goals, int parameters) throws Exception {
+        PluginDescriptor pluginDescriptor = new PluginDescriptor();
+        pluginDescriptor.setGroupId("org.wildfly.plugins");
+        pluginDescriptor.setArtifactId("wildfly-maven-plugin");
+        pluginDescriptor.setVersion("1.0.0.Final");
+        pluginDescriptor.setGoalPrefix("wildfly");
+        for (int i = 0; i < goals; i++) {
+            pluginDescriptor.addMojo(createMojo(pluginDescriptor, "goal-" + i, parameters));
+        }
+        return pluginDescriptor;
+    }
+
+    /**
+     * @param pluginDescriptor not null
+     * @param goal not null
+     * @param parameters the number of parameters
+     * @return a thread safe goal, a tenth of its parameters being read-only or components.
+     * @throws DuplicateParameterException if any
+     */
+    static MojoDescriptor createMojo(PluginDescriptor pluginDescriptor, String goal, int parameters)
+            throws DuplicateParameterException {
+        ExtendedMojoDescriptor mojoDescriptor = new ExtendedMojoDescriptor();
+        mojoDescriptor.setPluginDescriptor(pluginDescriptor);
+        mojoDescriptor.setGoal(goal);
+        mojoDescriptor.setImplementation("org.wildfly.plugin." + goal + "Mojo");
+        mojoDescriptor.setDescription(LONG_HTML_DESCRIPTION);
+        mojoDescriptor.setPhase("package");
+        mojoDescriptor.setSince("1.0");
+        mojoDescriptor.setDependencyResolutionRequired("runtime");
+        mojoDescriptor.setThreadSafe(true);
+        for (int i = 0; i < parameters; i++) {
+            Parameter parameter = new Parameter();
+            parameter.setName("parameter" + i);
+            parameter.setType(i % 3 == 0 ? "java.lang.String" : "java.util.List");
+            parameter.setRequired(i % 4 == 0);
+            parameter.setEditable(i % 10 != 9);
+            parameter.setDescription(LONG_HTML_DESCRIPTION);
+            parameter.setExpression(i % 10 == 8 ? "${component.org.example.Component}"
+                    : "${wildfly.parameter" + i + "}");
+            if (i % 5 == 0) {
+                parameter.setDefaultValue("${project.build.directory}/<server & \"config\">");
+            }
+            if (i % 7 == 0) {
+                parameter.setAlias("alias" + i);
+            }
+            if (i % 11 == 0) {
+                parameter.setDeprecated("Use <code>parameter0</code> instead.");
+            }
+            mojoDescriptor.addParameter(parameter);
+        }
+        return mojoDescriptor;
+    }
+
+    /**
+     * @return a plugin whose goals cover the layouts of the documentation, checked by {@link GoldenDocumentsTest}: a
+     * thread safe goal with HTML heavy descriptions, a deprecated aggregator, a goal without parameters, a goal
+     * with non ASCII text, mixed line endings and block content in a parameter description, and a larger synthetic
+     * goal.
+     * @throws Exception if any
+     */
+    static PluginDescriptor createRegressionPlugin() throws Exception {
+        PluginDescriptor pluginDescriptor = new PluginDescriptor();
+        pluginDescriptor.setGroupId("org.wildfly.plugins");
+        pluginDescriptor.setArtifactId("wildfly-maven-plugin");
+        pluginDescriptor.setVersion("1.0.0.Final");
+        pluginDescriptor.setGoalPrefix("wildfly");
+        pluginDescriptor.setName("WildFly Maven Plugin");
+        pluginDescriptor.setDescription("Deploys applications to <b>WildFly</b>.");
+
+        ExtendedMojoDescriptor deploy = new ExtendedMojoDescriptor();
+        deploy.setPluginDescriptor(pluginDescriptor);
+        deploy.setGoal("deploy");
+        deploy.setImplementation("org.wildfly.plugin.DeployMojo");
+        deploy.setDescription(LONG_HTML_DESCRIPTION);
+        deploy.setPhase("package");
+        deploy.setSince("1.1");
+        deploy.setDependencyResolutionRequired("runtime");
+        deploy.setThreadSafe(true);
+        deploy.addParameter(createParameter("hostname", "java.lang.String", LONG_HTML_DESCRIPTION,
+                "${wildfly.hostname}", "localhost", true));
+        deploy.addParameter(createParameter("port", "int", "The <i>management</i> port.", "${wildfly.port}",
+                "9990", false));
+        deploy.addParameter(createParameter("commands", "java.util.List",
+                "The CLI commands, a List<String> like <code>:read-resource(recursive=true)</code> &amp; "
+                + "{@code :reload}.", null,
+                null, false));
+        Parameter force = createParameter("force", "boolean", "Replaces the deployment if it exists.",
+                "${deploy.force}", "true", false);
+        force.setAlias("overwrite");
+        force.setSince("2.0");
+        deploy.addParameter(force);
+        Parameter name = createParameter("name", "java.lang.String", null, "${project.build.finalName}.${x}",
+                null, false);
+        name.setDeprecated("Use <code>runtimeName</code> instead.");
+        deploy.addParameter(name);
+        deploy.addParameter(createParameter("project", "org.apache.maven.project.MavenProject",
+                "The project.", "${project}", null, true));
+        deploy.addParameter(createParameter("client", "org.wildfly.plugin.ModelControllerClient",
+                "The client.", "${component.org.wildfly.plugin.ModelControllerClient}", null, false));
+        pluginDescriptor.addMojo(deploy);
+
+        ExtendedMojoDescriptor legacy = new ExtendedMojoDescriptor();
+        legacy.setPluginDescriptor(pluginDescriptor);
+        legacy.setGoal("legacy-deploy");
+        legacy.setImplementation("org.wildfly.plugin.LegacyDeployMojo");
+        legacy.setDeprecated("Use the <code>deploy</code> goal instead.<br/>It will be removed.");
+        legacy.setAggregator(true);
+        legacy.setOnlineRequired(true);
+        legacy.setInheritedByDefault(false);
+        legacy.setDependencyCollectionRequired("compile");
+        legacy.addParameter(createParameter("hostname", "java.lang.String", LONG_HTML_DESCRIPTION,
+                "${wildfly.hostname}", "localhost", true));
+        pluginDescriptor.addMojo(legacy);
+
+        MojoDescriptor info = new MojoDescriptor();
+        info.setPluginDescriptor(pluginDescriptor);
+        info.setGoal("info");
+        info.setImplementation("org.wildfly.plugin.InfoMojo");
+        info.setProjectRequired(false);
+        info.setDirectInvocationOnly(true);
+        info.setRequiresReports(true);
+        info.setExecutePhase("compile");
+        info.setExecuteGoal("deploy");
+        info.setExecuteLifecycle("wildfly");
+        pluginDescriptor.addMojo(info);
+
+        MojoDescriptor provision = new MojoDescriptor();
+        provision.setPluginDescriptor(pluginDescriptor);
+        provision.setGoal("provision");
+        provision.setImplementation("org.wildfly.plugin.ProvisionMojo");
+        provision.setDescription("Provisions a server from the <em>feature packs</em>\r\n"
+                + "r\u00e9solus depuis le d\u00e9p\u00f4t,\rin \u00abmixed\u00bb line endings\n\u2713.");
+        provision.addParameter(createParameter("featurePacks", "java.util.List",
+                "Les <code>feature packs</code> \u00e0 installer, \u4f8b\u3048\u3070 <tt>wildfly@maven</tt>.",
+                null, null, true));
+        provision.addParameter(createParameter("filter", "java.lang.String",
+                "Filters the provisioned files, like:<pre>ls | grep {name}</pre>Either:"
+                + "<ul><li>a command</li><li>a <code>|</code> separated list</li></ul>", "${wildfly.filter}", null,
+                false));
+        pluginDescriptor.addMojo(provision);
+
+        pluginDescriptor.addMojo(createMojo(pluginDescriptor, "synthetic", 25));
+        return pluginDescriptor;
+    }
+
+    private static Parameter createParameter(String name, String type, String description, String expression,
+            String defaultValue, boolean required) {
+        Parameter parameter = new Parameter();
+        parameter.setName(name);
+        parameter.setType(type);
+        parameter.setDescription(description);
+        parameter.setExpression(expression);
+        parameter.setDefaultValue(defaultValue);
+        parameter.setRequired(required);
+        return parameter;
+    }
+}